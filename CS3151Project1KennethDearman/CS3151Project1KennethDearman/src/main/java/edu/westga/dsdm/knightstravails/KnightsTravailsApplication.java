@@ -1,5 +1,6 @@
 package edu.westga.dsdm.knightstravails;
 
+import edu.westga.dsdm.knightstravails.view.KnightsTravailsCodeBehind;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -13,16 +14,25 @@ import java.io.IOException;
  * @author DSDM
  */
 public class KnightsTravailsApplication extends Application {
+    private KnightsTravailsCodeBehind codeBehind;
 
     @Override
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(KnightsTravailsApplication.class.getResource("view/kinights-travails-gui.fxml"));
         Scene scene = new Scene(fxmlLoader.load());
+        this.codeBehind = fxmlLoader.getController();
         stage.setTitle("Knight's Travails by Kenneth Dearman");
         stage.setScene(scene);
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (this.codeBehind != null) {
+            this.codeBehind.dispose();
+        }
+    }
+
     static void main(String[] args) {
         launch(KnightsTravailsApplication.class, args);
     }
@@ -0,0 +1,329 @@
+package edu.westga.dsdm.knightstravails.view;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * The ChessBoardCanvas draws the chess board of the knight's travails puzzle
+ * on a single canvas. Only the squares inside the viewport are drawn, so the
+ * cost of a frame depends on the size of the canvas and not of the board.
+ * Dragging pans the viewport, scrolling zooms around the mouse pointer, and a
+ * click without a drag selects the square under the pointer, found from the
+ * pointer coordinates. When the knight or target moves only the squares they
+ * left and entered are marked dirty, and the dirty squares are redrawn
+ * together once the current event has been handled.
+ *
+ * @author Kenneth Dearman
+ */
+public class ChessBoardCanvas extends Canvas {
+    /**
+     * The largest size of a square on the canvas, in pixels.
+     */
+    public static final double MAX_CELL_SIZE = 60;
+
+    /**
+     * The smallest size of a square on the canvas, in pixels.
+     */
+    public static final double MIN_CELL_SIZE = 4;
+
+    private static final double ICON_SCALE = 52.0 / 60.0;
+    private static final double ZOOM_PER_SCROLL_PIXEL = 1.005;
+    private static final Color LIGHT_SQUARE = Color.GAINSBORO;
+    private static final Color DARK_SQUARE = Color.DARKSLATEGRAY;
+    private static final Color BACKGROUND = Color.GREY;
+
+    private final BoardGeometry board;
+    private final Image knightImage;
+    private final Image targetImage;
+    private final Image knightOnTargetImage;
+    private final BooleanProperty selectionEnabledProperty;
+    private final Set<Position> dirtyCells;
+    private boolean redrawScheduled;
+    private Consumer<Position> onCellSelected;
+    private Position knightPosition;
+    private Position targetPosition;
+    private double cellSize;
+    private double offsetX;
+    private double offsetY;
+    private double dragX;
+    private double dragY;
+
+    /**
+     * Instantiates a new canvas showing the specified board.
+     *
+     * @param board the board to draw
+     * @param width the width of the canvas
+     * @param height the height of the canvas
+     * @param knightImage the image of the knight
+     * @param targetImage the image of the target
+     * @param knightOnTargetImage the image of the knight on the target
+     * @pre board != null && width > 0 && height > 0 && the images are not null
+     * @post the whole board is shown if it fits with squares of MIN_CELL_SIZE,
+     *       otherwise its top left corner is
+     */
+    public ChessBoardCanvas(BoardGeometry board, double width, double height, Image knightImage,
+            Image targetImage, Image knightOnTargetImage) {
+        super(width, height);
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("canvas must have a positive size.");
+        }
+        if (knightImage == null || targetImage == null || knightOnTargetImage == null) {
+            throw new IllegalArgumentException("Images cannot be null.");
+        }
+        this.board = board;
+        this.knightImage = knightImage;
+        this.targetImage = targetImage;
+        this.knightOnTargetImage = knightOnTargetImage;
+        this.selectionEnabledProperty = new SimpleBooleanProperty(true);
+        this.dirtyCells = new LinkedHashSet<>();
+        this.onCellSelected = _ -> {
+        };
+        double fit = Math.min(width / board.cols(), height / board.rows());
+        this.cellSize = Math.clamp(fit, MIN_CELL_SIZE, MAX_CELL_SIZE);
+
+        this.setOnMousePressed(this::handleMousePressed);
+        this.setOnMouseDragged(this::handleMouseDragged);
+        this.setOnMouseClicked(this::handleMouseClicked);
+        this.setOnScroll(this::handleScroll);
+        this.redraw();
+    }
+
+    /**
+     * Gets the property that tells whether clicking a square selects it.
+     * Panning and zooming work either way.
+     *
+     * @return the selection enabled property
+     * @pre none
+     * @post none
+     */
+    public BooleanProperty selectionEnabledProperty() {
+        return this.selectionEnabledProperty;
+    }
+
+    /**
+     * Sets the action run with the square the user clicked.
+     *
+     * @param onCellSelected the action
+     * @pre onCellSelected != null
+     * @post the action is run for every click on a square while selection is enabled
+     */
+    public void setOnCellSelected(Consumer<Position> onCellSelected) {
+        if (onCellSelected == null) {
+            throw new IllegalArgumentException("Action cannot be null.");
+        }
+        this.onCellSelected = onCellSelected;
+    }
+
+    /**
+     * Moves the knight to the specified square.
+     *
+     * @param position the square of the knight, or null to hide the knight
+     * @pre position == null || the board contains position
+     * @post the squares the knight left and entered are redrawn
+     */
+    public void setKnightPosition(Position position) {
+        this.markDirty(this.knightPosition);
+        this.knightPosition = position;
+        this.markDirty(position);
+    }
+
+    /**
+     * Moves the target to the specified square.
+     *
+     * @param position the square of the target, or null to hide the target
+     * @pre position == null || the board contains position
+     * @post the squares the target left and entered are redrawn
+     */
+    public void setTargetPosition(Position position) {
+        this.markDirty(this.targetPosition);
+        this.targetPosition = position;
+        this.markDirty(position);
+    }
+
+    /**
+     * Marks a square to be redrawn. All squares marked while an event is
+     * handled are redrawn together afterwards.
+     *
+     * @param position the square, or null to mark nothing
+     * @pre none
+     * @post the square is redrawn once the current event has been handled
+     */
+    public void markDirty(Position position) {
+        if (position == null) {
+            return;
+        }
+        this.dirtyCells.add(position);
+        if (!this.redrawScheduled) {
+            this.redrawScheduled = true;
+            Platform.runLater(this::redrawDirtyCells);
+        }
+    }
+
+    /**
+     * Draws every square inside the viewport.
+     *
+     * @pre none
+     * @post the canvas shows the viewport of the board
+     */
+    public void redraw() {
+        this.dirtyCells.clear();
+        GraphicsContext graphics = this.getGraphicsContext2D();
+        graphics.setFill(BACKGROUND);
+        graphics.fillRect(0, 0, this.getWidth(), this.getHeight());
+        int firstRow = this.firstVisible(this.offsetY);
+        int lastRow = this.lastVisible(this.offsetY, this.getHeight(), this.board.rows());
+        int firstCol = this.firstVisible(this.offsetX);
+        int lastCol = this.lastVisible(this.offsetX, this.getWidth(), this.board.cols());
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                this.drawSquare(graphics, row, col);
+            }
+        }
+        this.drawPiece(graphics, this.targetPosition);
+        this.drawPiece(graphics, this.knightPosition);
+    }
+
+    private void redrawDirtyCells() {
+        this.redrawScheduled = false;
+        GraphicsContext graphics = this.getGraphicsContext2D();
+        for (Position position : this.dirtyCells) {
+            if (this.isVisible(position.row(), position.col())) {
+                this.drawSquare(graphics, position.row(), position.col());
+                this.drawPiece(graphics, position);
+            }
+        }
+        this.dirtyCells.clear();
+    }
+
+    private int firstVisible(double offset) {
+        return Math.max(0, (int) Math.floor(offset / this.cellSize));
+    }
+
+    private int lastVisible(double offset, double extent, int count) {
+        return Math.min(count - 1, (int) Math.floor((offset + extent) / this.cellSize));
+    }
+
+    private boolean isVisible(int row, int col) {
+        return row >= this.firstVisible(this.offsetY)
+                && row <= this.lastVisible(this.offsetY, this.getHeight(), this.board.rows())
+                && col >= this.firstVisible(this.offsetX)
+                && col <= this.lastVisible(this.offsetX, this.getWidth(), this.board.cols());
+    }
+
+    private void drawSquare(GraphicsContext graphics, int row, int col) {
+        graphics.setFill((row + col) % 2 == 1 ? DARK_SQUARE : LIGHT_SQUARE);
+        graphics.fillRect(col * this.cellSize - this.offsetX, row * this.cellSize - this.offsetY,
+                this.cellSize, this.cellSize);
+    }
+
+    /**
+     * Draws the knight or target image on the specified square if either is on it.
+     *
+     * @param graphics the graphics context of the canvas
+     * @param position the square, or null to draw nothing
+     */
+    private void drawPiece(GraphicsContext graphics, Position position) {
+        if (position == null) {
+            return;
+        }
+        boolean knight = position.equals(this.knightPosition);
+        boolean target = position.equals(this.targetPosition);
+        Image image;
+        if (knight && target) {
+            image = this.knightOnTargetImage;
+        } else if (knight) {
+            image = this.knightImage;
+        } else if (target) {
+            image = this.targetImage;
+        } else {
+            return;
+        }
+        double height = this.cellSize * ICON_SCALE;
+        double width = Math.min(height * image.getWidth() / image.getHeight(), height);
+        double x = position.col() * this.cellSize - this.offsetX + (this.cellSize - width) / 2;
+        double y = position.row() * this.cellSize - this.offsetY + (this.cellSize - height) / 2;
+        graphics.drawImage(image, x, y, width, height);
+    }
+
+    /**
+     * Gets the square under the specified canvas coordinates.
+     *
+     * @param x the horizontal canvas coordinate
+     * @param y the vertical canvas coordinate
+     * @return the square, or null if the coordinates are off the board
+     */
+    private Position cellAt(double x, double y) {
+        double col = Math.floor((x + this.offsetX) / this.cellSize);
+        double row = Math.floor((y + this.offsetY) / this.cellSize);
+        if (row < 0 || col < 0 || row >= this.board.rows() || col >= this.board.cols()) {
+            return null;
+        }
+        return this.board.positionAt((int) row, (int) col);
+    }
+
+    private void handleMousePressed(MouseEvent event) {
+        this.dragX = event.getX();
+        this.dragY = event.getY();
+    }
+
+    private void handleMouseDragged(MouseEvent event) {
+        this.panTo(this.offsetX + this.dragX - event.getX(), this.offsetY + this.dragY - event.getY());
+        this.dragX = event.getX();
+        this.dragY = event.getY();
+    }
+
+    private void handleMouseClicked(MouseEvent event) {
+        if (!event.isStillSincePress() || !this.selectionEnabledProperty.get()) {
+            return;
+        }
+        Position position = this.cellAt(event.getX(), event.getY());
+        if (position != null) {
+            this.onCellSelected.accept(position);
+        }
+    }
+
+    /**
+     * Zooms around the mouse pointer, keeping the point of the board under it in place.
+     *
+     * @param event the scroll event
+     */
+    private void handleScroll(ScrollEvent event) {
+        double zoomed = Math.clamp(this.cellSize * Math.pow(ZOOM_PER_SCROLL_PIXEL, event.getDeltaY()),
+                MIN_CELL_SIZE, MAX_CELL_SIZE);
+        double scale = zoomed / this.cellSize;
+        this.cellSize = zoomed;
+        this.panTo((this.offsetX + event.getX()) * scale - event.getX(),
+                (this.offsetY + event.getY()) * scale - event.getY());
+        event.consume();
+    }
+
+    /**
+     * Moves the viewport, keeping it on the board, and redraws it.
+     *
+     * @param x the horizontal offset of the viewport
+     * @param y the vertical offset of the viewport
+     */
+    private void panTo(double x, double y) {
+        double maxX = Math.max(0, this.board.cols() * this.cellSize - this.getWidth());
+        double maxY = Math.max(0, this.board.rows() * this.cellSize - this.getHeight());
+        this.offsetX = Math.clamp(x, 0, maxX);
+        this.offsetY = Math.clamp(y, 0, maxY);
+        this.redraw();
+    }
+}
@@ -4,13 +4,14 @@ import edu.westga.dsdm.knightstravails.model.Position;
 import edu.westga.dsdm.knightstravails.viewmodel.KnightsTravailsViewModel;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
-import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.util.converter.NumberStringConverter;
@@ -25,14 +26,9 @@ import java.io.InputStream;
  */
 public class KnightsTravailsCodeBehind {
     /**
-     * The height of a cell on the chess board in the GUI.
+     * The gap between the chess board and the edge of its pane.
      */
-    private static final int CELL_HEIGHT = 60;
-
-    /**
-     * The height of an image place on a cell on the chess board in the GUI.
-     */
-    private static final int CELL_IMAGE_HEIGHT = 52;
+    private static final int BOARD_INSET = 2;
 
     @FXML
     private AnchorPane chessBoardPane;
@@ -49,7 +45,10 @@ public class KnightsTravailsCodeBehind {
     @FXML
     private Label youLostLabel;
 
-    private Button[][] squareButtons;
+    @FXML
+    private Label statusLabel;
+
+    private ChessBoardCanvas chessBoard;
 
     @FXML
     private Button undoButton;
@@ -60,12 +59,15 @@ public class KnightsTravailsCodeBehind {
     @FXML
     private Pane numberMovesPane;
 
+    @FXML
+    private ProgressIndicator searchingIndicator;
+
     private KnightsTravailsViewModel viewModel;
     private final SimpleObjectProperty<Position> knightPositionProperty;
     private final SimpleObjectProperty<Position> targetPositionProperty;
-    private ImageView knightIcon;
-    private ImageView targetIcon;
-    private ImageView knightOnTargetIcon;
+    private Image knightIcon;
+    private Image targetIcon;
+    private Image knightOnTargetIcon;
 
     /**
      * Instantiates a new student info code behind.
@@ -82,17 +84,14 @@ public class KnightsTravailsCodeBehind {
         this.targetIcon = this.createChessSquareIcon("images/Target.png");
     }
 
-    private ImageView createChessSquareIcon(String imageName) {
+    private Image createChessSquareIcon(String imageName) {
         InputStream imageStream = this.getClass().getResourceAsStream(imageName);
         if (imageStream == null) {
             System.err.println("Unable to load image: " + imageName);
             Platform.exit();
             System.exit(1);
         }
-        ImageView icon = new ImageView(new Image(imageStream));
-        icon.setFitHeight(CELL_IMAGE_HEIGHT);
-        icon.setPreserveRatio(true);
-        return icon;
+        return new Image(imageStream);
     }
 
     @FXML
@@ -116,62 +115,44 @@ public class KnightsTravailsCodeBehind {
     private void determineGameState() {
         BooleanProperty wonProperty = this.viewModel.wonProperty();
         BooleanProperty lostProperty = this.viewModel.lostProperty();
-
-        this.headerLabel.visibleProperty().bind(wonProperty.isEqualTo(lostProperty));
-        this.youWonLabel.visibleProperty().bind(wonProperty.and(lostProperty.not()));
-        this.youLostLabel.visibleProperty().bind(lostProperty.and(wonProperty.not()));
-        this.undoButton.disableProperty().bind(wonProperty.or(lostProperty));
-        this.showSolutionButton.disableProperty().bind(wonProperty.and(lostProperty.not()));
-        this.chessBoardPane.disableProperty().bind(wonProperty.or(lostProperty));
+        ReadOnlyBooleanProperty busyProperty = this.viewModel.busyProperty();
+        ReadOnlyStringProperty statusProperty = this.viewModel.statusProperty();
+
+        this.statusLabel.textProperty().bind(statusProperty);
+        this.statusLabel.visibleProperty().bind(statusProperty.isNotEmpty());
+        this.headerLabel.visibleProperty().bind(wonProperty.isEqualTo(lostProperty).and(statusProperty.isEmpty()));
+        this.youWonLabel.visibleProperty().bind(wonProperty.and(lostProperty.not()).and(statusProperty.isEmpty()));
+        this.youLostLabel.visibleProperty().bind(lostProperty.and(wonProperty.not()).and(statusProperty.isEmpty()));
+        this.undoButton.disableProperty().bind(wonProperty.or(lostProperty).or(busyProperty));
+        this.showSolutionButton.disableProperty().bind(wonProperty.and(lostProperty.not()).or(busyProperty));
+        this.chessBoard.selectionEnabledProperty().bind(wonProperty.or(lostProperty).or(busyProperty).not());
+        this.searchingIndicator.visibleProperty().bind(busyProperty);
     }
 
     private void setupChessBoard() {
-        this.squareButtons = new Button[8][8];
-        for (int row = 0; row < Position.MAX_ROWS; row++) {
-            for (int col = 0; col < Position.MAX_COLS; col++) {
-                this.squareButtons[row][col] = new Button("");
-                this.squareButtons[row][col].setLayoutX(col * CELL_HEIGHT + 2);
-                this.squareButtons[row][col].setLayoutY(row * CELL_HEIGHT + 2);
-                this.squareButtons[row][col].setPrefSize(CELL_HEIGHT, CELL_HEIGHT);
-                this.squareButtons[row][col].setPadding(new Insets(2));
-                if ((row + col) % 2 == 1) {
-                    this.squareButtons[row][col].setStyle("-fx-background-color: DarkSlateGray");
-                }
-                this.chessBoardPane.getChildren().add(this.squareButtons[row][col]);
-                this.addBoardSquareListener(row, col);
-            }
-        }
+        this.chessBoard = new ChessBoardCanvas(this.viewModel.getBoard(),
+                this.chessBoardPane.getPrefWidth() - 2 * BOARD_INSET,
+                this.chessBoardPane.getPrefHeight() - 2 * BOARD_INSET,
+                this.knightIcon, this.targetIcon, this.knightOnTargetIcon);
+        this.chessBoard.setLayoutX(BOARD_INSET);
+        this.chessBoard.setLayoutY(BOARD_INSET);
+        this.chessBoard.setOnCellSelected(this.viewModel::moveKnight);
+        this.chessBoardPane.getChildren().add(this.chessBoard);
     }
 
-    private void addBoardSquareListener(int row, int col) {
-        this.squareButtons[row][col].setOnAction(_ -> this.viewModel.moveKnight(new Position(row, col)));
+    private void setupListeners() {
+        this.knightPositionProperty.addListener((_, _, newValue) -> this.chessBoard.setKnightPosition(newValue));
+        this.targetPositionProperty.addListener((_, _, newValue) -> this.chessBoard.setTargetPosition(newValue));
     }
 
-    private void setupListeners() {
-        this.knightPositionProperty.addListener((_, oldValue, newValue) -> {
-            if (oldValue != null) {
-                if (oldValue.equals(this.targetPositionProperty.getValue())) {
-                    this.squareButtons[oldValue.row()][oldValue.col()].setGraphic(this.targetIcon);
-                } else {
-                    this.squareButtons[oldValue.row()][oldValue.col()].setGraphic(null);
-                }
-            }
-            if (newValue != null) {
-                if (newValue.equals(this.targetPositionProperty.getValue())) {
-                    this.squareButtons[newValue.row()][newValue.col()].setGraphic(this.knightOnTargetIcon);
-                } else {
-                    this.squareButtons[newValue.row()][newValue.col()].setGraphic(this.knightIcon);
-                }
-            }
-        });
-        this.targetPositionProperty.addListener((_, oldValue, newValue) -> {
-            if (oldValue != null) {
-                this.squareButtons[oldValue.row()][oldValue.col()].setGraphic(null);
-            }
-            if (newValue != null) {
-                this.squareButtons[newValue.row()][newValue.col()].setGraphic(this.targetIcon);
-            }
-        });
+    /**
+     * Stops the searches of the view model. Called when the application stops.
+     *
+     * @pre none
+     * @post the view model is disposed
+     */
+    public void dispose() {
+        this.viewModel.dispose();
     }
 
     @FXML
@@ -192,6 +173,5 @@ public class KnightsTravailsCodeBehind {
     @FXML
     void handleExit() {
         Platform.exit();
-        System.exit(0);
     }
 }
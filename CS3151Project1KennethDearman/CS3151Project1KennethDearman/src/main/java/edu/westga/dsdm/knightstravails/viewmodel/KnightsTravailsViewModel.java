@@ -1,15 +1,36 @@
 package edu.westga.dsdm.knightstravails.viewmodel;
 
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
 import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.solver.CachingSolver;
+import edu.westga.dsdm.knightstravails.solver.EvictionPolicy;
+import edu.westga.dsdm.knightstravails.solver.KnightMoveGraph;
+import edu.westga.dsdm.knightstravails.solver.PositionPair;
+import edu.westga.dsdm.knightstravails.solver.PuzzleGenerator;
+import edu.westga.dsdm.knightstravails.solver.SearchMode;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
 import edu.westga.dsdm.knightstravails.solver.SolvePuzzle;
+import edu.westga.dsdm.knightstravails.solver.Solver;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -19,10 +40,29 @@ import javafx.util.Duration;
  * The KnightsTravailsViewModel implements the logic for the
  * knight's travails puzzle GUI.
  *
+ * <p>The solver is never called on the JavaFX application thread. Searches run
+ * on the search executor, one virtual thread that runs them one after another
+ * by default, and their results are applied through the result executor,
+ * Platform.runLater by default. While a search is running the busy property is
+ * true. Only the newest search is applied: starting another search or a new
+ * puzzle cancels the pending one, and a result that arrives after it was
+ * cancelled is dropped. A cancelled search that has already started runs to
+ * the end, so the next search waits for it rather than sharing a solver that
+ * may not be thread-safe. A search that fails sets the status property to a
+ * message and undoes what the request changed; the status is cleared by the
+ * next search. A view model that made its own search executor shuts it down in
+ * dispose, which the application calls when it stops.</p>
+ *
  * @author DSDM
  */
 public class KnightsTravailsViewModel {
     private static final double MOVE_DELAY = 0.7;
+    private static final int CACHED_SOLUTIONS = 256;
+
+    private final BoardGeometry board;
+    private final KnightMoveGraph moves;
+    private final CompletableFuture<PuzzleGenerator> puzzles;
+    private final SplittableRandom random;
 
     private final SimpleObjectProperty<Position> knightPositionProperty;
     private final SimpleObjectProperty<Position> targetPositionProperty;
@@ -31,16 +71,104 @@ public class KnightsTravailsViewModel {
     private final BooleanProperty lostProperty;
     private final SimpleIntegerProperty numberMovesProperty;
     private Stack<Position> priorMoves;
-    private SolvePuzzle solver;
+    private Solver solver;
+    private final Executor searchExecutor;
+    private final ExecutorService ownedExecutor;
+    private final Executor resultExecutor;
+    private final ReadOnlyBooleanWrapper busyProperty;
+    private final ReadOnlyStringWrapper statusProperty;
+    private CompletableFuture<?> pendingSearch;
+    private Timeline solutionTrace;
 
     /**
      * Instantiates a new puzzle viewmodel for the logic of the knight's travails
-     * puzzle GUI.
+     * puzzle GUI on the standard chess board.
      *
      * @pre none
      * @post a new view model representing a knight's travails puzzle instance
      */
     public KnightsTravailsViewModel() {
+        this(BoardGeometry.STANDARD);
+    }
+
+    /**
+     * Instantiates a new puzzle viewmodel for the logic of the knight's travails
+     * puzzle GUI on the specified board.
+     *
+     * @param board the board the puzzle is played on
+     * @pre board != null && board.cellCount() <= KnightMoveGraph.MAX_CELLS
+     * @post a new view model representing a knight's travails puzzle instance
+     */
+    public KnightsTravailsViewModel(BoardGeometry board) {
+        this(new CachingSolver(new SolvePuzzle(board, SearchMode.ADAPTIVE), CACHED_SOLUTIONS,
+                EvictionPolicy.LEAST_RECENTLY_USED));
+    }
+
+    /**
+     * Instantiates a new puzzle viewmodel for the logic of the knight's travails
+     * puzzle GUI that uses the specified solver. The puzzle is played on the
+     * solver's board.
+     *
+     * @param solver the solver used to check and show solutions
+     * @pre solver != null && solver.getBoard().cellCount() <= KnightMoveGraph.MAX_CELLS
+     * @post a new view model representing a knight's travails puzzle instance
+     */
+    public KnightsTravailsViewModel(Solver solver) {
+        this(solver, Executors.newSingleThreadExecutor(Thread.ofVirtual().name("knight-search").factory()));
+    }
+
+    private KnightsTravailsViewModel(Solver solver, ExecutorService ownedExecutor) {
+        this(solver, ownedExecutor, Platform::runLater, ownedExecutor);
+    }
+
+    /**
+     * Instantiates a new puzzle viewmodel for the logic of the knight's travails
+     * puzzle GUI that runs its searches on the search executor and applies their
+     * results with the result executor. The result executor must run tasks on
+     * the thread that owns the properties of the view model. The search executor
+     * must run one task at a time unless the solver is thread-safe, because a
+     * cancelled search keeps running while the next one starts. The puzzle
+     * generator of the board is built on the search executor too. A puzzle
+     * asked for before it is ready is drawn on the search executor once it is,
+     * and on boards too large for a generator a puzzle is drawn there from
+     * random squares whose target the solver can reach.
+     *
+     * @param solver the solver used to check and show solutions
+     * @param searchExecutor the executor the solver is called on
+     * @param resultExecutor the executor search results are applied on
+     * @pre solver != null && searchExecutor != null && resultExecutor != null
+     *      && solver.getBoard().cellCount() <= KnightMoveGraph.MAX_CELLS
+     *      && the piece of the solver has at least one move on the board
+     *      && (searchExecutor runs one task at a time || solver is thread-safe)
+     * @post a new view model representing a knight's travails puzzle instance
+     */
+    public KnightsTravailsViewModel(Solver solver, Executor searchExecutor, Executor resultExecutor) {
+        this(solver, searchExecutor, resultExecutor, null);
+    }
+
+    private KnightsTravailsViewModel(Solver solver, Executor searchExecutor, Executor resultExecutor,
+            ExecutorService ownedExecutor) {
+        if (solver == null) {
+            throw new IllegalArgumentException("Solver cannot be null.");
+        }
+        if (searchExecutor == null || resultExecutor == null) {
+            throw new IllegalArgumentException("Executors cannot be null.");
+        }
+        this.searchExecutor = searchExecutor;
+        this.ownedExecutor = ownedExecutor;
+        this.resultExecutor = resultExecutor;
+        this.busyProperty = new ReadOnlyBooleanWrapper(false);
+        this.statusProperty = new ReadOnlyStringWrapper("");
+        this.board = solver.getBoard();
+        this.moves = KnightMoveGraph.forPiece(this.board, solver.getPiece());
+        if (!hasMove(this.moves)) {
+            throw new IllegalArgumentException("the " + solver.getPiece().name() + " cannot move on this board.");
+        }
+        this.puzzles = this.board.cellCount() <= PuzzleGenerator.MAX_CELLS
+                ? CompletableFuture.supplyAsync(() -> new PuzzleGenerator(this.board, solver.getPiece()), searchExecutor)
+                        .exceptionally(_ -> null)
+                : CompletableFuture.completedFuture(null);
+        this.random = new SplittableRandom();
         this.knightPositionProperty = new SimpleObjectProperty<Position>();
         this.targetPositionProperty = new SimpleObjectProperty<Position>();
         this.wonProperty = new SimpleBooleanProperty(false);
@@ -48,7 +176,27 @@ public class KnightsTravailsViewModel {
         this.startPosition = null;
         this.numberMovesProperty = new SimpleIntegerProperty();
         this.priorMoves = new Stack<Position>();
-        this.solver = new SolvePuzzle();
+        this.solver = solver;
+    }
+
+    private static boolean hasMove(KnightMoveGraph graph) {
+        for (int cell = 0; cell < graph.getCellCount(); cell++) {
+            if (graph.degree(cell) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the board the puzzle is played on.
+     *
+     * @return the board geometry
+     * @pre none
+     * @post none
+     */
+    public BoardGeometry getBoard() {
+        return this.board;
     }
 
     /**
@@ -95,6 +243,29 @@ public class KnightsTravailsViewModel {
         return this.lostProperty;
     }
 
+    /**
+     * Gets the busy property, which is true while a search is running.
+     *
+     * @return the busy property
+     * @pre none
+     * @post none
+     */
+    public ReadOnlyBooleanProperty busyProperty() {
+        return this.busyProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the status property, which holds a message when the last search
+     * failed and is empty otherwise.
+     *
+     * @return the status property
+     * @pre none
+     * @post none
+     */
+    public ReadOnlyStringProperty statusProperty() {
+        return this.statusProperty.getReadOnlyProperty();
+    }
+
     /**
      * Gets the number moves property.
      *
@@ -115,7 +286,8 @@ public class KnightsTravailsViewModel {
      * (knight has reached the goal in the minimum number moves ->
      * this.wonProperty.getValue() == true) AND
      * (knight has reached the goal in more than the minimum number of
-     * moves -> this.lostProperty.getValue() == true)
+     * moves -> this.lostProperty.getValue() == true), once the minimum number
+     * of moves has been found
      */
     public void moveKnight(Position position) {
         if (position == null) {
@@ -128,23 +300,74 @@ public class KnightsTravailsViewModel {
             this.numberMovesProperty.setValue(this.numberMovesProperty.getValue() + 1);
         }
         if (this.knightPositionProperty.getValue().equals(this.targetPositionProperty.getValue())) {
-            if (this.didUserWin()) {
-                this.wonProperty.setValue(true);
+            int userMoves = this.numberMovesProperty.getValue();
+            this.submitSearch(this.distanceSearch(), winningMoves -> {
+                if (winningMoves >= userMoves) {
+                    this.wonProperty.setValue(true);
+                } else {
+                    this.lostProperty.setValue(true);
+                }
+            }, () -> { });
+        }
+    }
+
+    private Supplier<Integer> distanceSearch() {
+        Position start = this.startPosition;
+        Position target = this.targetPositionProperty.getValue();
+        return () -> this.solver.distance(start, target);
+    }
+
+    /**
+     * Runs a search on the search executor, replacing the pending one. The
+     * result, or the failure of the search, is applied on the result executor
+     * unless the search was cancelled in the meantime.
+     *
+     * @param <T> the type of the search result
+     * @param search the search to run
+     * @param onResult applies the result of the search
+     * @param onError undoes the changes of the request if the search fails
+     * @return the future result of the search
+     */
+    private <T> CompletableFuture<T> submitSearch(Supplier<T> search, Consumer<T> onResult, Runnable onError) {
+        this.cancelSearch();
+        this.statusProperty.set("");
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(search, this.searchExecutor);
+        } catch (RejectedExecutionException exception) {
+            result = CompletableFuture.failedFuture(new IllegalStateException("the game has been closed."));
+        }
+        CompletableFuture<T> submitted = result;
+        this.pendingSearch = submitted;
+        this.busyProperty.set(true);
+        submitted.whenCompleteAsync((value, error) -> {
+            if (this.pendingSearch != submitted) {
+                return;
+            }
+            this.pendingSearch = null;
+            this.busyProperty.set(false);
+            if (error == null) {
+                onResult.accept(value);
             } else {
-                this.lostProperty.setValue(true);
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                this.statusProperty.set("The search failed: " + message);
+                onError.run();
             }
-        }
+        }, this.resultExecutor);
+        return submitted;
     }
 
     /**
-     * Checks if the user has completed the puzzle in the correct amount of moves.
-     * @pre none
-     * @post return true or false
-     * @return true or false if the user has won or not
+     * Cancels the pending search so its result is never applied.
      */
-    private boolean didUserWin() {
-        int winningMoves = this.solver.getSolution(this.startPosition, this.targetPositionProperty.getValue()).size();
-        return winningMoves > this.numberMovesProperty.getValue();
+    private void cancelSearch() {
+        if (this.pendingSearch != null) {
+            this.pendingSearch.cancel(false);
+            this.pendingSearch = null;
+            this.busyProperty.set(false);
+        }
     }
 
     /**
@@ -157,9 +380,7 @@ public class KnightsTravailsViewModel {
      * @return true or false based on if the move is valid
      */
     private boolean isValidMove(Position currentPosition, Position newPosition) {
-        int rowDifference = Math.abs(newPosition.row() - currentPosition.row());
-        int colDifference = Math.abs(newPosition.col() - currentPosition.col());
-        return ((rowDifference == 2 && colDifference == 1) || (rowDifference == 1 && colDifference == 2));
+        return this.moves.isMove(this.board.indexOf(currentPosition), this.board.indexOf(newPosition));
     }
 
     /**
@@ -180,32 +401,99 @@ public class KnightsTravailsViewModel {
      *
      * @pre none
      * @post wonProperty.getValue == true && lostProperty.getValue() == true
+     *       && the path is traced once it has been found
+     * @return the future shortest path
      */
-    public void showSolution() {
+    public CompletableFuture<SolutionPath> showSolution() {
+        boolean won = this.wonProperty.getValue();
+        boolean lost = this.lostProperty.getValue();
         this.wonProperty.setValue(true);
         this.lostProperty.setValue(true);
-        LinkedList<Position> solutionPath = this.solver.getSolution(this.startPosition, this.targetPositionProperty.getValue());
-        this.tracePath(solutionPath.iterator(), solutionPath.size() - 1);
+        Position start = this.startPosition;
+        Position target = this.targetPositionProperty.getValue();
+        return this.submitSearch(() -> this.solver.findPath(start, target),
+                solutionPath -> {
+                    if (solutionPath != null) {
+                        this.tracePath(solutionPath.iterator(), solutionPath.length());
+                    }
+                }, () -> {
+                    this.wonProperty.setValue(won);
+                    this.lostProperty.setValue(lost);
+                });
     }
 
     /**
-     * Instantiates a new knight's travails puzzle instance.
+     * Instantiates a new knight's travails puzzle instance whose target can be
+     * reached. Once the puzzle generator is ready the puzzle is drawn at once.
+     * Before that, or on boards too large for a generator, it is drawn on the
+     * search executor and the view model is busy until it is set.
      *
      * @pre none
      * @post wonProperty.getValue == false && lostProperty.getValue() == false
      */
     public void initializeNewPuzzle() {
-        Random rand = new Random();
-        this.startPosition = new Position(rand.nextInt(Position.MAX_ROWS), rand.nextInt(Position.MAX_COLS));
-        this.knightPositionProperty.setValue(this.startPosition);
-        Position targetPosition = this.startPosition;
-        while (targetPosition.equals(this.startPosition)) {
-            targetPosition = new Position(rand.nextInt(Position.MAX_ROWS), rand.nextInt(Position.MAX_COLS));
-        }
-        this.targetPositionProperty.setValue(targetPosition);
+        this.cancelSearch();
+        this.stopSolutionTrace();
         this.wonProperty.setValue(false);
         this.lostProperty.setValue(false);
         this.numberMovesProperty.setValue(0);
+        this.statusProperty.set("");
+        SplittableRandom draws = this.random.split();
+        PuzzleGenerator generator = this.puzzles.getNow(null);
+        if (generator != null && generator.getPuzzleCount() > 0) {
+            this.setPuzzle(generator.next(draws));
+        } else {
+            this.submitSearch(() -> this.drawPuzzle(draws), this::setPuzzle, () -> { });
+        }
+    }
+
+    /**
+     * Stops the view model: cancels the pending search, stops tracing a
+     * solution and shuts down the search executor if the view model made it.
+     * A search that has already started runs to the end on its own thread.
+     *
+     * @pre none
+     * @post no search result is applied any more && the own search executor
+     *       takes no more searches
+     */
+    public void dispose() {
+        this.cancelSearch();
+        this.stopSolutionTrace();
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Draws a puzzle on the search executor, from the generator once it is
+     * built, or from random squares until the solver reaches the target.
+     *
+     * @param draws the random numbers of this puzzle only
+     * @return the puzzle
+     */
+    private PositionPair drawPuzzle(SplittableRandom draws) {
+        PuzzleGenerator generator = this.puzzles.join();
+        if (generator != null && generator.getPuzzleCount() > 0) {
+            return generator.next(draws);
+        }
+        while (true) {
+            Position start = this.randomPosition(draws);
+            Position target = this.randomPosition(draws);
+            if (!start.equals(target) && this.solver.distance(start, target) != -1) {
+                return new PositionPair(start, target);
+            }
+        }
+    }
+
+    private void setPuzzle(PositionPair puzzle) {
+        this.startPosition = puzzle.start();
+        this.knightPositionProperty.setValue(puzzle.start());
+        this.targetPositionProperty.setValue(puzzle.target());
+        this.numberMovesProperty.setValue(0);
+    }
+
+    private Position randomPosition(SplittableRandom draws) {
+        return this.board.positionAt(draws.nextInt(this.board.rows()), draws.nextInt(this.board.cols()));
     }
 
     /**
@@ -218,6 +506,7 @@ public class KnightsTravailsViewModel {
      * @post none
      */
     private void tracePath(Iterator<Position> path, int pathLength) {
+        this.stopSolutionTrace();
         this.numberMovesProperty.setValue(0);
         if (path.hasNext()) {
             this.knightPositionProperty.setValue(path.next());
@@ -229,7 +518,15 @@ public class KnightsTravailsViewModel {
                 this.numberMovesProperty.setValue(this.numberMovesProperty.getValue() + 1);
             }));
             timeline.setCycleCount(pathLength);
+            this.solutionTrace = timeline;
             timeline.play();
         }
     }
+
+    private void stopSolutionTrace() {
+        if (this.solutionTrace != null) {
+            this.solutionTrace.stop();
+            this.solutionTrace = null;
+        }
+    }
 }
@@ -1,9 +1,10 @@
 module edu.westga.dsdm.knightstravails {
     requires javafx.controls;
     requires javafx.fxml;
+    requires edu.westga.dsdm.knightstravails.solver;
 
     opens edu.westga.dsdm.knightstravails to javafx.fxml;
     exports edu.westga.dsdm.knightstravails;
     exports edu.westga.dsdm.knightstravails.view;
     opens edu.westga.dsdm.knightstravails.view to javafx.fxml;
-}
\ No newline at end of file
+}
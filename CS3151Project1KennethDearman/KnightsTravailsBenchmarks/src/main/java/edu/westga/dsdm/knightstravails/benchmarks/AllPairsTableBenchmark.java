@@ -0,0 +1,69 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.solver.SearchMode;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
+import edu.westga.dsdm.knightstravails.solver.SolvePuzzle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures queries answered from the precomputed all-pairs table, on the board
+ * sizes the table supports.
+ *
+ * @author Kenneth Dearman
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllPairsTableBenchmark {
+    @Param({"8", "64"})
+    public int boardSize;
+
+    @Param({"RANDOM", "CORNER_TO_CORNER"})
+    public QueryPairs pairs;
+
+    private SolvePuzzle solver;
+    private Position[] starts;
+    private Position[] targets;
+    private int next;
+
+    /**
+     * Builds the table and the query pairs.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BoardGeometry board = new BoardGeometry(this.boardSize, this.boardSize);
+        this.solver = new SolvePuzzle(board, SearchMode.PRECOMPUTED_TABLE);
+        this.starts = this.pairs.starts(board);
+        this.targets = this.pairs.targets(board);
+        this.solver.findPath(this.starts[0], this.targets[0]);
+    }
+
+    /**
+     * Walks the table for one query.
+     *
+     * @return the solution path
+     */
+    @Benchmark
+    public SolutionPath tableWalk() {
+        int index = this.next++ & (QueryPairs.COUNT - 1);
+        return this.solver.findPath(this.starts[index], this.targets[index]);
+    }
+}
@@ -0,0 +1,100 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.solver.BatchSolver;
+import edu.westga.dsdm.knightstravails.solver.DistanceField;
+import edu.westga.dsdm.knightstravails.solver.PositionPair;
+import edu.westga.dsdm.knightstravails.solver.SearchMode;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
+import edu.westga.dsdm.knightstravails.solver.SolvePuzzle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sweeps that query the corner target from every square of the board,
+ * one query at a time, as a single batch and as one distance field.
+ *
+ * @author Kenneth Dearman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllSourcesBenchmark {
+    @Param({"8", "64", "256"})
+    public int boardSize;
+
+    private SolvePuzzle solver;
+    private BatchSolver batchSolver;
+    private BoardGeometry board;
+    private Position target;
+    private PositionPair[] queries;
+
+    /**
+     * Builds the solvers and one query per square.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BoardGeometry board = new BoardGeometry(this.boardSize, this.boardSize);
+        this.board = board;
+        this.solver = new SolvePuzzle(board, SearchMode.PRIMITIVE_BREADTH_FIRST);
+        this.batchSolver = new BatchSolver(board);
+        Position target = new Position(board.rows() - 1, board.cols() - 1);
+        this.target = target;
+        this.queries = new PositionPair[this.boardSize * this.boardSize];
+        for (int row = 0; row < board.rows(); row++) {
+            for (int col = 0; col < board.cols(); col++) {
+                this.queries[row * board.cols() + col] = new PositionPair(new Position(row, col), target);
+            }
+        }
+    }
+
+    /**
+     * Answers every query with its own search.
+     *
+     * @param blackhole consumes the paths
+     */
+    @Benchmark
+    public void sequentialSweep(Blackhole blackhole) {
+        for (PositionPair query : this.queries) {
+            blackhole.consume(this.solver.findPath(query.start(), query.target()));
+        }
+    }
+
+    /**
+     * Answers every query as one batch.
+     *
+     * @return the paths
+     */
+    @Benchmark
+    public List<SolutionPath> batchSweep() {
+        return this.batchSolver.solveAll(this.queries);
+    }
+
+    /**
+     * Gets the distance from every square to the target with one search from the target.
+     *
+     * @return the distance field
+     */
+    @Benchmark
+    public DistanceField distanceField() {
+        return DistanceField.from(this.board, this.target);
+    }
+}
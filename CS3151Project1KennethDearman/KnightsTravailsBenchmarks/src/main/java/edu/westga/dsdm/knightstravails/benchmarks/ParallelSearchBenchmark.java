@@ -0,0 +1,91 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.solver.IntBreadthFirstSearch;
+import edu.westga.dsdm.knightstravails.solver.ParallelBreadthFirstSearch;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how a single corner to corner search on a board of a million squares
+ * or more scales with the number of threads of the parallel search, next to the
+ * sequential int breadth first search.
+ *
+ * @author Kenneth Dearman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSearchBenchmark {
+    @Param({"1024", "2048"})
+    public int boardSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private ParallelBreadthFirstSearch parallelSearch;
+    private IntBreadthFirstSearch sequentialSearch;
+    private Position start;
+    private Position target;
+
+    /**
+     * Builds both searches and the pool.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BoardGeometry board = new BoardGeometry(this.boardSize, this.boardSize);
+        this.pool = new ForkJoinPool(this.threads);
+        this.parallelSearch = new ParallelBreadthFirstSearch(board, this.pool);
+        this.sequentialSearch = new IntBreadthFirstSearch(board);
+        this.start = board.positionAt(0, 0);
+        this.target = board.positionAt(this.boardSize - 1, this.boardSize - 1);
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Runs one parallel search.
+     *
+     * @return the solution path
+     */
+    @Benchmark
+    public SolutionPath parallel() {
+        return this.parallelSearch.findPath(this.start, this.target);
+    }
+
+    /**
+     * Runs one sequential search, which does not depend on the thread count.
+     *
+     * @return the solution path
+     */
+    @Benchmark
+    public SolutionPath sequential() {
+        return this.sequentialSearch.findPath(this.start, this.target);
+    }
+}
@@ -0,0 +1,97 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the model operations on the search hot path: creating positions,
+ * hashing them into a predecessor map, and rebuilding a path from that map the
+ * way the breadth first search of SolvePuzzle does.
+ *
+ * @author Kenneth Dearman
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+    @Param({"8", "64", "512"})
+    public int boardSize;
+
+    private HashMap<Position, Position> predecessors;
+    private Position pathEnd;
+    private int next;
+
+    /**
+     * Builds a predecessor map holding one long diagonal path across the board.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.predecessors = new HashMap<>();
+        Position previous = null;
+        Position current = new Position(0, 0);
+        while (current.row() + 2 < this.boardSize && current.col() + 1 < this.boardSize) {
+            this.predecessors.put(current, previous);
+            previous = current;
+            current = new Position(current.row() + 2, current.col() + 1);
+        }
+        this.predecessors.put(current, previous);
+        this.pathEnd = current;
+    }
+
+    /**
+     * Creates one position.
+     *
+     * @return the position
+     */
+    @Benchmark
+    public Position construct() {
+        int index = this.next++;
+        return new Position((index >>> 9) % this.boardSize, index % this.boardSize);
+    }
+
+    /**
+     * Hashes a position and looks it up in the predecessor map.
+     *
+     * @return the predecessor, or null
+     */
+    @Benchmark
+    public Position hashLookup() {
+        int index = this.next++;
+        return this.predecessors.get(new Position((index >>> 9) % this.boardSize, index % this.boardSize));
+    }
+
+    /**
+     * Rebuilds the path from the predecessor map.
+     *
+     * @return the path
+     */
+    @Benchmark
+    public LinkedList<Position> getPath() {
+        LinkedList<Position> path = new LinkedList<>();
+        Position current = this.pathEnd;
+
+        while (current != null) {
+            path.addFirst(current);
+            current = this.predecessors.get(current);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,78 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.solver.PositionPair;
+import edu.westga.dsdm.knightstravails.solver.PuzzleGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures drawing puzzles from a generator that favors long puzzles, one at a
+ * time and in parallel batches.
+ *
+ * @author Kenneth Dearman
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PuzzleGeneratorBenchmark {
+    private static final int BATCH_SIZE = 1 << 16;
+
+    @Param({"8", "64"})
+    public int boardSize;
+
+    private PuzzleGenerator generator;
+    private SplittableRandom random;
+    private long seed;
+
+    /**
+     * Buckets the pairs of the board and weights each number of moves by itself.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        PuzzleGenerator buckets = new PuzzleGenerator(new BoardGeometry(this.boardSize, this.boardSize));
+        double[] weights = new double[buckets.getMaxMoves() + 1];
+        for (int moves = 1; moves < weights.length; moves++) {
+            weights[moves] = moves;
+        }
+        this.generator = buckets.withDistribution(weights);
+        this.random = new SplittableRandom(1);
+    }
+
+    /**
+     * Draws one puzzle.
+     *
+     * @return the puzzle
+     */
+    @Benchmark
+    public PositionPair next() {
+        return this.generator.next(this.random);
+    }
+
+    /**
+     * Draws one batch of puzzles.
+     *
+     * @return the puzzles
+     */
+    @Benchmark
+    public List<PositionPair> batch() {
+        return this.generator.generate(BATCH_SIZE, this.seed++);
+    }
+}
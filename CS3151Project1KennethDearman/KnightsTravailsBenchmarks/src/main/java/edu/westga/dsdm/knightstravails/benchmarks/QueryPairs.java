@@ -0,0 +1,71 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The kinds of (start, target) pairs the benchmarks query. Pairs are generated
+ * from a fixed seed so every run measures the same queries.
+ *
+ * @author Kenneth Dearman
+ */
+public enum QueryPairs {
+    /**
+     * Uniformly random starts and targets.
+     */
+    RANDOM,
+
+    /**
+     * Opposite corners, the longest queries on a square board.
+     */
+    CORNER_TO_CORNER;
+
+    /**
+     * The number of pairs generated, a power of two.
+     */
+    public static final int COUNT = 1024;
+
+    private static final long SEED = 3151;
+
+    /**
+     * Gets the starting positions.
+     *
+     * @param board the board
+     * @return COUNT starting positions
+     */
+    public Position[] starts(BoardGeometry board) {
+        if (this == CORNER_TO_CORNER) {
+            Position[] corners = new Position[COUNT];
+            Arrays.fill(corners, new Position(0, 0));
+            return corners;
+        }
+        return random(board, SEED);
+    }
+
+    /**
+     * Gets the target positions.
+     *
+     * @param board the board
+     * @return COUNT target positions
+     */
+    public Position[] targets(BoardGeometry board) {
+        if (this == CORNER_TO_CORNER) {
+            Position[] corners = new Position[COUNT];
+            Arrays.fill(corners, new Position(board.rows() - 1, board.cols() - 1));
+            return corners;
+        }
+        return random(board, SEED + 1);
+    }
+
+    private static Position[] random(BoardGeometry board, long seed) {
+        Random random = new Random(seed);
+        Position[] positions = new Position[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            positions[i] = new Position(random.nextInt(board.rows()), random.nextInt(board.cols()));
+        }
+        return positions;
+    }
+}
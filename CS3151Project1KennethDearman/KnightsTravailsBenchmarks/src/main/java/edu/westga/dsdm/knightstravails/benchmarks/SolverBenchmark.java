@@ -0,0 +1,82 @@
+package edu.westga.dsdm.knightstravails.benchmarks;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.solver.SearchMode;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
+import edu.westga.dsdm.knightstravails.solver.SolvePuzzle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single-pair path and distance queries of SolvePuzzle for every search
+ * mode, board size and kind of query pair.
+ *
+ * @author Kenneth Dearman
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+    @Param({"8", "64", "512"})
+    public int boardSize;
+
+    @Param({"BREADTH_FIRST", "PRIMITIVE_BREADTH_FIRST", "BIDIRECTIONAL", "ADAPTIVE", "LARGE_BOARD"})
+    public SearchMode mode;
+
+    @Param({"RANDOM", "CORNER_TO_CORNER"})
+    public QueryPairs pairs;
+
+    private SolvePuzzle solver;
+    private Position[] starts;
+    private Position[] targets;
+    private int next;
+
+    /**
+     * Builds the solver and the query pairs.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BoardGeometry board = new BoardGeometry(this.boardSize, this.boardSize);
+        this.solver = new SolvePuzzle(board, this.mode);
+        this.starts = this.pairs.starts(board);
+        this.targets = this.pairs.targets(board);
+    }
+
+    /**
+     * Solves one query.
+     *
+     * @return the solution path
+     */
+    @Benchmark
+    public SolutionPath singlePair() {
+        int index = this.next++ & (QueryPairs.COUNT - 1);
+        return this.solver.findPath(this.starts[index], this.targets[index]);
+    }
+
+    /**
+     * Gets the distance of one query.
+     *
+     * @return the distance
+     */
+    @Benchmark
+    public int distance() {
+        int index = this.next++ & (QueryPairs.COUNT - 1);
+        return this.solver.distance(this.starts[index], this.targets[index]);
+    }
+}
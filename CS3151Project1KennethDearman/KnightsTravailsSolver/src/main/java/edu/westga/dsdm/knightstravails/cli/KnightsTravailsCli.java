@@ -0,0 +1,320 @@
+package edu.westga.dsdm.knightstravails.cli;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.server.QueryServer;
+import edu.westga.dsdm.knightstravails.solver.AllPairsTable;
+import edu.westga.dsdm.knightstravails.solver.SearchMode;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
+import edu.westga.dsdm.knightstravails.solver.SolvePuzzle;
+import edu.westga.dsdm.knightstravails.solver.Solver;
+import edu.westga.dsdm.knightstravails.solver.SolverMetrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The KnightsTravailsCli answers knight's travails queries without a display.
+ * Each input line holds one query as four integers, startRow startCol
+ * targetRow targetCol, separated by spaces or commas. Blank lines and lines
+ * starting with # are skipped. For every query one line is written: the number
+ * of moves followed by the squares of a shortest path as row,col, or just the
+ * number of moves with --distance-only. Unreachable targets are written as -1.
+ * Answers are flushed whenever no more input is waiting, so the runner can be
+ * used interactively as well as in a pipe. With --tables DIR queries are
+ * answered from an all-pairs table file in DIR, which is built on first use.
+ * With --metrics a summary of the work and latency of the queries is written
+ * to stderr at the end. With --piece the paths are found for another leaper
+ * than the knight. With --serve PORT the queries are answered over HTTP on
+ * the loopback address instead, see QueryServer. The server is only loaded for
+ * --serve, and needs the jdk.httpserver module.
+ *
+ * @author Kenneth Dearman
+ */
+public final class KnightsTravailsCli {
+    /**
+     * The exit status when every query was answered.
+     */
+    public static final int EXIT_OK = 0;
+
+    /**
+     * The exit status when at least one input line could not be read as a query.
+     */
+    public static final int EXIT_BAD_INPUT = 1;
+
+    /**
+     * The exit status when the arguments are invalid.
+     */
+    public static final int EXIT_USAGE = 2;
+
+    private static final String HTTP_SERVER_MODULE = "jdk.httpserver";
+    private static final String USAGE = "usage: knights-travails [--board ROWSxCOLS] [--mode MODE | --tables DIR] [--piece PIECE] [--distance-only] [--metrics] [--serve PORT | FILE]";
+
+    private final Solver solver;
+    private final boolean distanceOnly;
+    private final PrintStream errors;
+    private int badLines;
+
+    /**
+     * Instantiates a new runner that answers queries with the specified solver.
+     *
+     * @param solver the solver
+     * @param distanceOnly true to write only the number of moves of each query
+     * @param errors the stream malformed lines are reported to
+     * @pre solver != null && errors != null
+     * @post none
+     */
+    public KnightsTravailsCli(Solver solver, boolean distanceOnly, PrintStream errors) {
+        if (solver == null) {
+            throw new IllegalArgumentException("Solver cannot be null.");
+        }
+        if (errors == null) {
+            throw new IllegalArgumentException("Error stream cannot be null.");
+        }
+        this.solver = solver;
+        this.distanceOnly = distanceOnly;
+        this.errors = errors;
+    }
+
+    /**
+     * Runs the command line solver.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Parses the arguments and answers every query of stdin or the input file on stdout.
+     *
+     * @param args the command line arguments
+     * @return the exit status
+     */
+    static int run(String[] args) {
+        BoardGeometry board = BoardGeometry.STANDARD;
+        SearchMode mode = SearchMode.ADAPTIVE;
+        Piece piece = Piece.KNIGHT;
+        boolean distanceOnly = false;
+        boolean measure = false;
+        Integer port = null;
+        Path input = null;
+        Path tables = null;
+        SolvePuzzle solver;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--board" -> board = parseBoard(argumentAfter(args, i++));
+                    case "--mode" -> mode = SearchMode.valueOf(argumentAfter(args, i++).toUpperCase());
+                    case "--tables" -> tables = Path.of(argumentAfter(args, i++));
+                    case "--piece" -> piece = parsePiece(argumentAfter(args, i++));
+                    case "--distance-only" -> distanceOnly = true;
+                    case "--metrics" -> measure = true;
+                    case "--serve" -> port = Integer.parseInt(argumentAfter(args, i++));
+                    case "--help" -> {
+                        System.out.println(USAGE);
+                        return EXIT_OK;
+                    }
+                    default -> {
+                        if (input != null || args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("unexpected argument " + args[i]);
+                        }
+                        input = Path.of(args[i]);
+                    }
+                }
+            }
+            if (tables != null) {
+                AllPairsTable.forBoard(board.rows(), board.cols(), tables);
+                mode = SearchMode.PRECOMPUTED_TABLE;
+            }
+            solver = new SolvePuzzle(board, mode, piece);
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (UncheckedIOException exception) {
+            System.err.println(exception.getMessage() + ": " + exception.getCause().getMessage());
+            return EXIT_USAGE;
+        }
+
+        SolverMetrics metrics = new SolverMetrics(true);
+        if (measure || port != null) {
+            solver.setMetrics(metrics);
+        }
+        if (port != null) {
+            if (ModuleLayer.boot().findModule(HTTP_SERVER_MODULE).isEmpty()) {
+                System.err.println("--serve needs the " + HTTP_SERVER_MODULE + " module, add it with --add-modules "
+                        + HTTP_SERVER_MODULE);
+                return EXIT_USAGE;
+            }
+            return serve(solver, metrics, port);
+        }
+        KnightsTravailsCli cli = new KnightsTravailsCli(solver, distanceOnly, System.err);
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (BufferedReader reader = input == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return cli.answerAll(reader, output);
+        } catch (IOException exception) {
+            System.err.println("cannot read queries: " + exception.getMessage());
+            return EXIT_BAD_INPUT;
+        } finally {
+            if (measure) {
+                printMetrics(metrics);
+            }
+        }
+    }
+
+    /**
+     * Answers queries over HTTP on the loopback address until the process is stopped.
+     *
+     * @param solver the solver
+     * @param metrics the metrics the solver records its searches in
+     * @param port the port to listen on
+     * @return the exit status
+     */
+    private static int serve(Solver solver, SolverMetrics metrics, int port) {
+        QueryServer server;
+        try {
+            server = new QueryServer(solver, metrics, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException | IllegalArgumentException exception) {
+            System.err.println("cannot listen on port " + port + ": " + exception.getMessage());
+            return EXIT_USAGE;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.err.println("listening on http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort());
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException exception) {
+            server.close();
+        }
+        return EXIT_OK;
+    }
+
+    private static void printMetrics(SolverMetrics metrics) {
+        System.err.printf("searched queries: %d (%d unreachable)%n", metrics.getQueryCount(), metrics.getUnreachableCount());
+        System.err.printf("nodes expanded: %d, reached: %d, neighbors skipped: %d, peak frontier: %d%n",
+                metrics.getNodesExpanded(), metrics.getNodesReached(), metrics.getNeighborsSkipped(),
+                metrics.getPeakFrontier());
+        System.err.printf("latency us: mean %.1f, p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                metrics.getMeanLatencyMicros(), metrics.getLatencyP50Micros(), metrics.getLatencyP99Micros(),
+                metrics.getLatencyP999Micros(), metrics.getMaxLatencyMicros());
+    }
+
+    private static String argumentAfter(String[] args, int index) {
+        if (index + 1 >= args.length) {
+            throw new IllegalArgumentException(args[index] + " needs a value");
+        }
+        return args[index + 1];
+    }
+
+    /**
+     * Gets the piece named by the text: knight, camel or zebra, or M,N for the (M, N) leaper.
+     *
+     * @param text the name or steps of the piece
+     * @return the piece
+     */
+    private static Piece parsePiece(String text) {
+        return switch (text.toLowerCase()) {
+            case "knight" -> Piece.KNIGHT;
+            case "camel" -> Piece.CAMEL;
+            case "zebra" -> Piece.ZEBRA;
+            default -> {
+                String[] steps = text.split(",");
+                if (steps.length != 2) {
+                    throw new IllegalArgumentException("piece must be knight, camel, zebra or M,N");
+                }
+                yield Piece.leaper(text, Integer.parseInt(steps[0].strip()), Integer.parseInt(steps[1].strip()));
+            }
+        };
+    }
+
+    private static BoardGeometry parseBoard(String text) {
+        String[] dimensions = text.toLowerCase().split("x");
+        if (dimensions.length != 2) {
+            throw new IllegalArgumentException("board must be given as ROWSxCOLS");
+        }
+        return new BoardGeometry(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    /**
+     * Answers every query read from the reader, writing one line per query.
+     *
+     * @param reader the source of queries
+     * @param output the destination of the answers
+     * @pre reader != null && output != null
+     * @post output is flushed
+     * @return EXIT_OK if every line was a valid query, EXIT_BAD_INPUT otherwise
+     * @throws IOException if reading or writing fails
+     */
+    public int answerAll(BufferedReader reader, Writer output) throws IOException {
+        if (reader == null || output == null) {
+            throw new IllegalArgumentException("Reader and writer cannot be null.");
+        }
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String query = line.strip();
+            if (!query.isEmpty() && !query.startsWith("#")) {
+                this.answer(query, lineNumber, output);
+            }
+            if (!reader.ready()) {
+                output.flush();
+            }
+        }
+        output.flush();
+        return this.badLines == 0 ? EXIT_OK : EXIT_BAD_INPUT;
+    }
+
+    private void answer(String query, int lineNumber, Writer output) throws IOException {
+        String[] fields = query.split("[\\s,]+");
+        Position start;
+        Position target;
+        try {
+            if (fields.length != 4) {
+                throw new IllegalArgumentException("expected startRow startCol targetRow targetCol");
+            }
+            BoardGeometry board = this.solver.getBoard();
+            start = board.positionAt(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+            target = board.positionAt(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]));
+        } catch (IllegalArgumentException exception) {
+            this.badLines++;
+            this.errors.println("line " + lineNumber + ": " + exception.getMessage());
+            return;
+        }
+
+        if (this.distanceOnly) {
+            output.write(Integer.toString(this.solver.distance(start, target)));
+            output.write(System.lineSeparator());
+            return;
+        }
+        SolutionPath path = this.solver.findPath(start, target);
+        if (path == null) {
+            output.write("-1");
+        } else {
+            output.write(Integer.toString(path.length()));
+            for (Position position : path) {
+                output.write(' ');
+                output.write(Integer.toString(position.row()));
+                output.write(',');
+                output.write(Integer.toString(position.col()));
+            }
+        }
+        output.write(System.lineSeparator());
+    }
+}
@@ -0,0 +1,140 @@
+package edu.westga.dsdm.knightstravails.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * BlockedSquares stores the squares of a board that are occupied by other pieces
+ * and cannot be moved to. Listeners are told about every square that changes.
+ *
+ * @author Kenneth Dearman
+ */
+public class BlockedSquares {
+    private final BoardGeometry board;
+    private final Set<Position> blocked;
+    private final List<BlockedSquaresListener> listeners;
+
+    /**
+     * Instantiates a new set of blocked squares on the specified board, with every
+     * square free.
+     *
+     * @param board the board
+     * @pre board != null
+     * @post getBlockedSquares().isEmpty()
+     */
+    public BlockedSquares(BoardGeometry board) {
+        if (board == null) {
+            throw new IllegalArgumentException("board cannot be null");
+        }
+        this.board = board;
+        this.blocked = new HashSet<>();
+        this.listeners = new ArrayList<>();
+    }
+
+    /**
+     * Gets the board.
+     *
+     * @return the board geometry
+     * @pre none
+     * @post none
+     */
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the blocked squares.
+     *
+     * @return an unmodifiable view of the blocked squares
+     * @pre none
+     * @post none
+     */
+    public Set<Position> getBlockedSquares() {
+        return Collections.unmodifiableSet(this.blocked);
+    }
+
+    /**
+     * Checks if the specified square is blocked.
+     *
+     * @param position the square
+     * @return true if the square is blocked, false otherwise
+     * @pre position != null
+     * @post none
+     */
+    public boolean isBlocked(Position position) {
+        if (position == null) {
+            throw new IllegalArgumentException("position cannot be null");
+        }
+        return this.blocked.contains(position);
+    }
+
+    /**
+     * Blocks the specified square.
+     *
+     * @param position the square
+     * @return true if the square was free, false otherwise
+     * @pre position != null && getBoard().contains(position)
+     * @post isBlocked(position)
+     */
+    public boolean block(Position position) {
+        if (!this.board.contains(position)) {
+            throw new IllegalArgumentException("invalid chess board position");
+        }
+        if (!this.blocked.add(position)) {
+            return false;
+        }
+        for (BlockedSquaresListener listener : this.listeners) {
+            listener.squareChanged(position, true);
+        }
+        return true;
+    }
+
+    /**
+     * Frees the specified square.
+     *
+     * @param position the square
+     * @return true if the square was blocked, false otherwise
+     * @pre position != null && getBoard().contains(position)
+     * @post !isBlocked(position)
+     */
+    public boolean free(Position position) {
+        if (!this.board.contains(position)) {
+            throw new IllegalArgumentException("invalid chess board position");
+        }
+        if (!this.blocked.remove(position)) {
+            return false;
+        }
+        for (BlockedSquaresListener listener : this.listeners) {
+            listener.squareChanged(position, false);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a listener that is told about every square that changes.
+     *
+     * @param listener the listener
+     * @pre listener != null
+     * @post the listener is called after every change
+     */
+    public void addListener(BlockedSquaresListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     * @pre none
+     * @post the listener is no longer called
+     */
+    public void removeListener(BlockedSquaresListener listener) {
+        this.listeners.remove(listener);
+    }
+}
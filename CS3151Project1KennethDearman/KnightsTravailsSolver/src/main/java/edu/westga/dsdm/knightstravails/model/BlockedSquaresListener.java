@@ -0,0 +1,19 @@
+package edu.westga.dsdm.knightstravails.model;
+
+/**
+ * A BlockedSquaresListener is told whenever a square on a board is blocked or
+ * freed.
+ *
+ * @author Kenneth Dearman
+ */
+public interface BlockedSquaresListener {
+    /**
+     * Called after a square has been blocked or freed.
+     *
+     * @param position the square that changed
+     * @param blocked true if the square is now blocked, false if it is now free
+     * @pre position != null
+     * @post none
+     */
+    void squareChanged(Position position, boolean blocked);
+}
@@ -0,0 +1,148 @@
+package edu.westga.dsdm.knightstravails.model;
+
+/**
+ * BoardGeometry stores the dimensions of a rectangular chess board and checks
+ * which positions lie on it.
+ *
+ * @param rows the number of rows
+ * @param cols the number of columns
+ * @author Kenneth Dearman
+ */
+public record BoardGeometry(int rows, int cols) {
+    /**
+     * The largest number of rows or columns a board can have.
+     */
+    public static final int MAX_DIMENSION = 100_000;
+
+    /**
+     * The standard 8 x 8 chess board.
+     */
+    public static final BoardGeometry STANDARD = new BoardGeometry(Position.MAX_ROWS, Position.MAX_COLS);
+
+    /**
+     * Instantiates a new board geometry with rows x cols cells.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @pre rows > 0 and rows <= MAX_DIMENSION and cols > 0 and cols <= MAX_DIMENSION
+     * @post rows() == rows and cols() == cols
+     */
+    public BoardGeometry {
+        if (rows <= 0 || rows > MAX_DIMENSION || cols <= 0 || cols > MAX_DIMENSION) {
+            throw new IllegalArgumentException("invalid chess board dimensions");
+        }
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of rows
+     * @pre none
+     * @post none
+     */
+    @Override
+    public int rows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns
+     * @pre none
+     * @post none
+     */
+    @Override
+    public int cols() {
+        return this.cols;
+    }
+
+    /**
+     * Gets the number of cells on the board.
+     *
+     * @return rows * cols
+     * @pre none
+     * @post none
+     */
+    public long cellCount() {
+        return (long) this.rows * this.cols;
+    }
+
+    /**
+     * Checks if the specified cell lies on the board.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return true if the cell is on the board, false otherwise
+     * @pre none
+     * @post none
+     */
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < this.rows && col >= 0 && col < this.cols;
+    }
+
+    /**
+     * Checks if the specified position lies on the board.
+     *
+     * @param position the position
+     * @return true if the position is on the board, false otherwise
+     * @pre position != null
+     * @post none
+     */
+    public boolean contains(Position position) {
+        if (position == null) {
+            throw new IllegalArgumentException("position cannot be null");
+        }
+        return this.contains(position.row(), position.col());
+    }
+
+    /**
+     * Gets the position of the specified cell.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the position of the cell
+     * @pre contains(row, col)
+     * @post none
+     */
+    public Position positionAt(int row, int col) {
+        if (!this.contains(row, col)) {
+            throw new IllegalArgumentException("invalid chess board position");
+        }
+        return Position.of(row, col);
+    }
+
+    /**
+     * Gets the position of the cell with the specified index.
+     *
+     * @param index the index of the cell
+     * @return the position of the cell
+     * @pre 0 <= index < cellCount()
+     * @post indexOf(return) == index
+     */
+    public Position positionAt(long index) {
+        if (index < 0 || index >= this.cellCount()) {
+            throw new IllegalArgumentException("invalid chess board cell index");
+        }
+        return Position.of((int) (index / this.cols), (int) (index % this.cols));
+    }
+
+    /**
+     * Gets the dense index of the specified position on the board. Cells are
+     * numbered row by row from 0 to cellCount() - 1.
+     *
+     * @param position the position
+     * @return row * cols + col
+     * @pre contains(position) and cellCount() <= Integer.MAX_VALUE
+     * @post positionAt(return).equals(position)
+     */
+    public int indexOf(Position position) {
+        if (!this.contains(position)) {
+            throw new IllegalArgumentException("position is not on the board");
+        }
+        if (this.cellCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("board is too large for int cell indices");
+        }
+        return position.row() * this.cols + position.col();
+    }
+}
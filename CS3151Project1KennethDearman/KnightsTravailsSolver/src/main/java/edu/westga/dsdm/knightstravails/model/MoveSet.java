@@ -0,0 +1,230 @@
+package edu.westga.dsdm.knightstravails.model;
+
+import java.util.Arrays;
+
+/**
+ * A MoveSet holds the jumps a leaper piece can make, as row and column steps.
+ * Every move set is reversible: with each step it also holds the opposite
+ * step, so distances between squares are the same in both directions. The
+ * steps are kept in a lookup table indexed by step, so checking whether a jump
+ * belongs to the set is one array read. The numbers needed by the lower bound
+ * on the number of moves are computed once, when the set is made.
+ *
+ * @author Kenneth Dearman
+ */
+public final class MoveSet {
+    /**
+     * The largest row or column step a move can have.
+     */
+    public static final int MAX_STEP = 16;
+
+    private static final int TABLE_SIDE = 2 * MAX_STEP + 1;
+
+    private final int[] rowSteps;
+    private final int[] colSteps;
+    private final boolean[] table;
+    private final int reach;
+    private final int span;
+    private final boolean colorChanging;
+
+    /**
+     * Gets the move set of an (m, n) leaper, which jumps m squares along one axis
+     * and n along the other in any of the eight directions. The knight is the
+     * (2, 1) leaper. The steps are ordered (m, n), (m, -n), (-m, n), (-m, -n),
+     * (n, m), (n, -m), (-n, m), (-n, -m), without repeats.
+     *
+     * @param m the number of squares along one axis
+     * @param n the number of squares along the other axis
+     * @pre 0 <= m <= MAX_STEP && 0 <= n <= MAX_STEP && m + n > 0
+     * @post none
+     * @return the move set
+     */
+    public static MoveSet leaper(int m, int n) {
+        if (m < 0 || n < 0 || m > MAX_STEP || n > MAX_STEP || m + n == 0) {
+            throw new IllegalArgumentException("a leaper needs steps between 0 and " + MAX_STEP + ", not both 0");
+        }
+        return of(new int[][] {{m, n}, {m, -n}, {-m, n}, {-m, -n}, {n, m}, {n, -m}, {-n, m}, {-n, -m}});
+    }
+
+    /**
+     * Gets the move set with the specified steps and their opposites. Repeated
+     * steps are kept once, in the order they first appear.
+     *
+     * @param steps the steps as {rowStep, colStep} pairs
+     * @pre steps != null && steps.length > 0 && every step has two entries between
+     *      -MAX_STEP and MAX_STEP, not both 0
+     * @post none
+     * @return the move set
+     */
+    public static MoveSet of(int[][] steps) {
+        if (steps == null || steps.length == 0) {
+            throw new IllegalArgumentException("a move set needs at least one step");
+        }
+        int[] rows = new int[2 * steps.length];
+        int[] cols = new int[2 * steps.length];
+        boolean[] table = new boolean[TABLE_SIDE * TABLE_SIDE];
+        int count = 0;
+        for (int[] step : steps) {
+            if (step == null || step.length != 2 || Math.abs(step[0]) > MAX_STEP || Math.abs(step[1]) > MAX_STEP
+                    || (step[0] == 0 && step[1] == 0)) {
+                throw new IllegalArgumentException("invalid step " + Arrays.toString(step));
+            }
+            count = add(rows, cols, table, count, step[0], step[1]);
+        }
+        for (int[] step : steps) {
+            count = add(rows, cols, table, count, -step[0], -step[1]);
+        }
+        return new MoveSet(Arrays.copyOf(rows, count), Arrays.copyOf(cols, count), table);
+    }
+
+    private static int add(int[] rows, int[] cols, boolean[] table, int count, int rowStep, int colStep) {
+        int index = tableIndex(rowStep, colStep);
+        if (table[index]) {
+            return count;
+        }
+        table[index] = true;
+        rows[count] = rowStep;
+        cols[count] = colStep;
+        return count + 1;
+    }
+
+    private static int tableIndex(int rowStep, int colStep) {
+        return (rowStep + MAX_STEP) * TABLE_SIDE + colStep + MAX_STEP;
+    }
+
+    private MoveSet(int[] rowSteps, int[] colSteps, boolean[] table) {
+        this.rowSteps = rowSteps;
+        this.colSteps = colSteps;
+        this.table = table;
+        int largestStep = 0;
+        int largestSpan = 0;
+        boolean allOdd = true;
+        for (int i = 0; i < rowSteps.length; i++) {
+            int rowStep = Math.abs(rowSteps[i]);
+            int colStep = Math.abs(colSteps[i]);
+            largestStep = Math.max(largestStep, Math.max(rowStep, colStep));
+            largestSpan = Math.max(largestSpan, rowStep + colStep);
+            allOdd &= ((rowStep + colStep) & 1) == 1;
+        }
+        this.reach = largestStep;
+        this.span = largestSpan;
+        this.colorChanging = allOdd;
+    }
+
+    /**
+     * Gets the move set with the steps of this set followed by those of the other
+     * set that this one lacks. A compound piece moves like either of its parts.
+     *
+     * @param other the other move set
+     * @pre other != null
+     * @post none
+     * @return the combined move set
+     */
+    public MoveSet union(MoveSet other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Move set cannot be null.");
+        }
+        int[][] steps = new int[this.size() + other.size()][];
+        for (int i = 0; i < this.size(); i++) {
+            steps[i] = new int[] {this.rowSteps[i], this.colSteps[i]};
+        }
+        for (int i = 0; i < other.size(); i++) {
+            steps[this.size() + i] = new int[] {other.rowSteps[i], other.colSteps[i]};
+        }
+        return of(steps);
+    }
+
+    /**
+     * Gets the number of steps.
+     *
+     * @pre none
+     * @post none
+     * @return the number of steps
+     */
+    public int size() {
+        return this.rowSteps.length;
+    }
+
+    /**
+     * Gets the row step of one move.
+     *
+     * @param index the index of the move
+     * @pre 0 <= index < size()
+     * @post none
+     * @return the row step
+     */
+    public int rowStep(int index) {
+        return this.rowSteps[index];
+    }
+
+    /**
+     * Gets the column step of one move.
+     *
+     * @param index the index of the move
+     * @pre 0 <= index < size()
+     * @post none
+     * @return the column step
+     */
+    public int colStep(int index) {
+        return this.colSteps[index];
+    }
+
+    /**
+     * Checks if the set holds a jump.
+     *
+     * @param rowStep the row difference of the jump
+     * @param colStep the column difference of the jump
+     * @pre none
+     * @post none
+     * @return true if the jump is one of the steps, false otherwise
+     */
+    public boolean contains(int rowStep, int colStep) {
+        if (Math.abs(rowStep) > MAX_STEP || Math.abs(colStep) > MAX_STEP) {
+            return false;
+        }
+        return this.table[tableIndex(rowStep, colStep)];
+    }
+
+    /**
+     * Gets a lower bound on the number of moves between two squares on any
+     * board. One move changes the larger of the row and column differences by at
+     * most the reach of the set, and their sum by at most its span. When every
+     * step has an odd sum, every move changes the color of the square, so the
+     * number of moves has the parity of the sum of the differences.
+     *
+     * @param rowDifference the row difference between the squares
+     * @param colDifference the column difference between the squares
+     * @pre none
+     * @post none
+     * @return a lower bound that never exceeds the number of moves
+     */
+    public int lowerBound(int rowDifference, int colDifference) {
+        int rowDistance = Math.abs(rowDifference);
+        int colDistance = Math.abs(colDifference);
+        int bound = Math.max((Math.max(rowDistance, colDistance) + this.reach - 1) / this.reach,
+                (rowDistance + colDistance + this.span - 1) / this.span);
+        if (this.colorChanging && ((bound + rowDistance + colDistance) & 1) != 0) {
+            bound++;
+        }
+        return bound;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MoveSet moves && Arrays.equals(this.table, moves.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.table);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < this.size(); i++) {
+            text.append(i == 0 ? "" : ", ").append('(').append(this.rowSteps[i]).append(", ").append(this.colSteps[i]).append(')');
+        }
+        return text.append('}').toString();
+    }
+}
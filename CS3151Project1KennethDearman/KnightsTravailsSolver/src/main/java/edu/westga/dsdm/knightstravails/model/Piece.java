@@ -0,0 +1,92 @@
+package edu.westga.dsdm.knightstravails.model;
+
+/**
+ * A Piece is a named leaper: a piece that jumps straight to the squares given
+ * by its move set, whatever lies in between. Compound pieces move like any of
+ * their parts.
+ *
+ * @param name the name of the piece
+ * @param moves the jumps of the piece
+ * @author Kenneth Dearman
+ */
+public record Piece(String name, MoveSet moves) {
+    /**
+     * The knight, the (2, 1) leaper.
+     */
+    public static final Piece KNIGHT = leaper("knight", 2, 1);
+
+    /**
+     * The camel, the (3, 1) leaper. It never leaves the color it starts on.
+     */
+    public static final Piece CAMEL = leaper("camel", 3, 1);
+
+    /**
+     * The zebra, the (3, 2) leaper.
+     */
+    public static final Piece ZEBRA = leaper("zebra", 3, 2);
+
+    /**
+     * Instantiates a new piece.
+     *
+     * @param name the name of the piece
+     * @param moves the jumps of the piece
+     * @pre name != null && !name.isBlank() && moves != null
+     * @post name() == name && moves() == moves
+     */
+    public Piece {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A piece needs a name.");
+        }
+        if (moves == null) {
+            throw new IllegalArgumentException("Move set cannot be null.");
+        }
+    }
+
+    /**
+     * Gets the (m, n) leaper with the specified name.
+     *
+     * @param name the name of the piece
+     * @param m the number of squares along one axis
+     * @param n the number of squares along the other axis
+     * @pre name != null && !name.isBlank() && 0 <= m, n <= MoveSet.MAX_STEP && m + n > 0
+     * @post none
+     * @return the piece
+     */
+    public static Piece leaper(String name, int m, int n) {
+        return new Piece(name, MoveSet.leaper(m, n));
+    }
+
+    /**
+     * Gets the compound piece that moves like any of the specified pieces.
+     *
+     * @param name the name of the piece
+     * @param parts the pieces combined
+     * @pre name != null && !name.isBlank() && parts != null && parts.length > 0 && no part is null
+     * @post none
+     * @return the piece
+     */
+    public static Piece compound(String name, Piece... parts) {
+        if (parts == null || parts.length == 0) {
+            throw new IllegalArgumentException("A compound piece needs at least one part.");
+        }
+        MoveSet moves = null;
+        for (Piece part : parts) {
+            if (part == null) {
+                throw new IllegalArgumentException("Parts cannot be null.");
+            }
+            moves = moves == null ? part.moves() : moves.union(part.moves());
+        }
+        return new Piece(name, moves);
+    }
+
+    /**
+     * Checks if the piece moves like the knight.
+     *
+     * @pre none
+     * @post none
+     * @return true if the piece has exactly the knight's moves, false otherwise
+     */
+    public boolean isKnight() {
+        return this.moves.equals(KNIGHT.moves);
+    }
+}
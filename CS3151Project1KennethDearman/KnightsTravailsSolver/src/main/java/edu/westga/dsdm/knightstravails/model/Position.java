@@ -0,0 +1,114 @@
+package edu.westga.dsdm.knightstravails.model;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Positions stores a position on a chess board and can provide the neighboring
+ * positions a knight can move to from that position. Positions obtained from
+ * Position.of are shared: every cell with row and column below CACHE_DIMENSION
+ * has exactly one such instance, whatever board it is used on.
+ *
+ * @param row the row index
+ * @param col the column index
+ * @author DSDM
+ */
+public record Position(int row, int col) {
+    /**
+     * The number rows of the standard chess board.
+     */
+    public static final int MAX_ROWS = 8;
+    /**
+     * The number columns of the standard chess board.
+     */
+    public static final int MAX_COLS = 8;
+    /**
+     * The number of rows and columns whose positions are shared by Position.of.
+     */
+    public static final int CACHE_DIMENSION = 256;
+
+    private static final AtomicReferenceArray<Position> CACHE = new AtomicReferenceArray<>(CACHE_DIMENSION * CACHE_DIMENSION);
+
+    /**
+     * Instantiates a new position. Whether the position lies on a particular board
+     * is checked by that board's BoardGeometry.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @pre row >= 0 and row < BoardGeometry.MAX_DIMENSION and col >= 0 and col < BoardGeometry.MAX_DIMENSION
+     * @post getRow() == row and getCol() == col
+     */
+    public Position {
+        if (row < 0 || row >= BoardGeometry.MAX_DIMENSION || col < 0 || col >= BoardGeometry.MAX_DIMENSION) {
+            throw new IllegalArgumentException("invalid chess board position");
+        }
+    }
+
+    /**
+     * Gets the shared position of the specified cell. Cells outside the cache get
+     * a new position on every call.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @pre row >= 0 and row < BoardGeometry.MAX_DIMENSION and col >= 0 and col < BoardGeometry.MAX_DIMENSION
+     * @post none
+     * @return the position of the cell
+     */
+    public static Position of(int row, int col) {
+        if (row < 0 || row >= CACHE_DIMENSION || col < 0 || col >= CACHE_DIMENSION) {
+            return new Position(row, col);
+        }
+        int slot = row * CACHE_DIMENSION + col;
+        Position position = CACHE.get(slot);
+        if (position == null) {
+            Position created = new Position(row, col);
+            position = CACHE.compareAndExchange(slot, null, created);
+            if (position == null) {
+                position = created;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Gets the row index.
+     *
+     * @return the row
+     * @pre none
+     * @post none
+     */
+    @Override
+    public int row() {
+        return this.row;
+    }
+
+    /**
+     * Gets the column index.
+     *
+     * @return the column
+     * @pre none
+     * @post none
+     */
+    @Override
+    public int col() {
+        return this.col;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof Position)) {
+            return false;
+        }
+        return this.row() == ((Position) obj).row() && this.col() == ((Position) obj).col();
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode((long) this.row() * BoardGeometry.MAX_DIMENSION + this.col());
+    }
+}
@@ -0,0 +1,327 @@
+package edu.westga.dsdm.knightstravails.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+import edu.westga.dsdm.knightstravails.solver.LatencyHistogram;
+import edu.westga.dsdm.knightstravails.solver.SolutionPath;
+import edu.westga.dsdm.knightstravails.solver.Solver;
+import edu.westga.dsdm.knightstravails.solver.SolverMetrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The QueryServer answers knight's travails queries over HTTP with the JDK's
+ * built-in server. Every request runs on its own virtual thread.
+ *
+ * <p>POST /paths and POST /distances take a body of newline-delimited queries.
+ * A query is a JSON object such as {"start":[0,0],"target":[7,7]}, or four
+ * integers as on the command line. The answers are streamed back as
+ * newline-delimited JSON, one line per query in the order of the queries:
+ * {"moves":6,"path":[[0,0],...]} from /paths, {"moves":6} from /distances,
+ * and {"moves":-1} when the target cannot be reached. A line that is not a
+ * query, or a query the solver fails on, is answered with
+ * {"line":n,"error":"..."} and the stream goes on with the next line. Answers are flushed
+ * whenever no more of the body has arrived, so a client may keep writing
+ * queries while it reads the answers.</p>
+ *
+ * <p>The solver module only requires jdk.httpserver statically, so modules
+ * that use the solvers do not need it. A module that uses this package must
+ * require jdk.httpserver itself, or be run with --add-modules jdk.httpserver.</p>
+ *
+ * <p>GET /metrics returns a JSON object with the number of requests, queries
+ * and failed queries, the queries per second since the server started,
+ * percentiles of the time taken by each query, and the search counters of the
+ * solver metrics if the server was given them.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public final class QueryServer implements AutoCloseable {
+    /**
+     * The path that answers queries with shortest paths.
+     */
+    public static final String PATHS = "/paths";
+
+    /**
+     * The path that answers queries with the number of moves only.
+     */
+    public static final String DISTANCES = "/distances";
+
+    /**
+     * The path that reports throughput and latency.
+     */
+    public static final String METRICS = "/metrics";
+
+    private static final int BACKLOG = 1024;
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final Pattern START = squarePattern("start");
+    private static final Pattern TARGET = squarePattern("target");
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile("[\\s,]+");
+
+    private final Solver solver;
+    private final SolverMetrics searchMetrics;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyHistogram queryLatencies;
+    private final LongAdder requests;
+    private final LongAdder badLines;
+    private final LongAdder failedQueries;
+    private final long startNanos;
+
+    /**
+     * Instantiates a new server bound to the specified address. The server
+     * does not answer until it is started.
+     *
+     * @param solver the solver that answers the queries
+     * @param searchMetrics the metrics the solver records its searches in, or null to leave them out of /metrics
+     * @param address the address to listen on
+     * @pre solver != null && address != null
+     * @post none
+     * @throws IOException if the address cannot be bound
+     */
+    public QueryServer(Solver solver, SolverMetrics searchMetrics, InetSocketAddress address) throws IOException {
+        if (solver == null) {
+            throw new IllegalArgumentException("Solver cannot be null.");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null.");
+        }
+        this.solver = solver;
+        this.searchMetrics = searchMetrics;
+        this.queryLatencies = new LatencyHistogram();
+        this.requests = new LongAdder();
+        this.badLines = new LongAdder();
+        this.failedQueries = new LongAdder();
+        this.startNanos = System.nanoTime();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, BACKLOG);
+        this.server.setExecutor(this.executor);
+        this.server.createContext(PATHS, exchange -> this.handleQueries(exchange, false));
+        this.server.createContext(DISTANCES, exchange -> this.handleQueries(exchange, true));
+        this.server.createContext(METRICS, this::handleMetrics);
+    }
+
+    private static Pattern squarePattern(String key) {
+        return Pattern.compile("\"" + key + "\"\\s*:\\s*\\[\\s*(-?\\d+)\\s*,\\s*(-?\\d+)\\s*\\]");
+    }
+
+    /**
+     * Starts answering requests.
+     *
+     * @pre the server was not started before
+     * @post none
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Gets the address the server listens on, with the port it was given if port 0 was asked for.
+     *
+     * @pre none
+     * @post none
+     * @return the address
+     */
+    public InetSocketAddress getAddress() {
+        return this.server.getAddress();
+    }
+
+    /**
+     * Stops the server. Requests still running lose their connection.
+     *
+     * @pre none
+     * @post the server no longer accepts requests
+     */
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void handleQueries(HttpExchange exchange, boolean distanceOnly) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                this.sendError(exchange, 405, "queries must be posted");
+                return;
+            }
+            this.requests.increment();
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            Writer output = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String query = line.strip();
+                if (!query.isEmpty()) {
+                    output.write(this.answer(query, lineNumber, distanceOnly));
+                    output.write('\n');
+                }
+                if (!reader.ready()) {
+                    output.flush();
+                }
+            }
+            output.flush();
+        }
+    }
+
+    /**
+     * Answers one query as a line of JSON.
+     *
+     * @param query the query
+     * @param lineNumber the line of the body the query was on
+     * @param distanceOnly true to leave out the path
+     * @return the answer, without a line break
+     */
+    private String answer(String query, int lineNumber, boolean distanceOnly) {
+        Position start;
+        Position target;
+        try {
+            Position[] squares = this.parse(query);
+            start = squares[0];
+            target = squares[1];
+        } catch (IllegalArgumentException exception) {
+            this.badLines.increment();
+            return error(lineNumber, exception);
+        }
+
+        long started = System.nanoTime();
+        String answer;
+        try {
+            answer = distanceOnly
+                    ? "{\"moves\":" + this.solver.distance(start, target) + "}"
+                    : pathAnswer(this.solver.findPath(start, target));
+        } catch (RuntimeException exception) {
+            this.failedQueries.increment();
+            return error(lineNumber, exception);
+        }
+        this.queryLatencies.record(System.nanoTime() - started);
+        return answer;
+    }
+
+    private static String pathAnswer(SolutionPath path) {
+        if (path == null) {
+            return "{\"moves\":-1}";
+        }
+        StringBuilder answer = new StringBuilder("{\"moves\":").append(path.length()).append(",\"path\":[");
+        for (int index = 0; index <= path.length(); index++) {
+            Position position = path.get(index);
+            answer.append(index == 0 ? "[" : ",[").append(position.row()).append(',').append(position.col()).append(']');
+        }
+        return answer.append("]}").toString();
+    }
+
+    /**
+     * Reads the start and target of a query given as a JSON object or as four integers.
+     *
+     * @param query the query
+     * @return the start and target
+     */
+    private Position[] parse(String query) {
+        BoardGeometry board = this.solver.getBoard();
+        if (query.startsWith("{")) {
+            Matcher start = START.matcher(query);
+            Matcher target = TARGET.matcher(query);
+            if (!start.find() || !target.find()) {
+                throw new IllegalArgumentException("expected {\"start\":[row,col],\"target\":[row,col]}");
+            }
+            return new Position[] {
+                board.positionAt(Integer.parseInt(start.group(1)), Integer.parseInt(start.group(2))),
+                board.positionAt(Integer.parseInt(target.group(1)), Integer.parseInt(target.group(2)))
+            };
+        }
+        String[] fields = FIELD_SEPARATOR.split(query);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("expected startRow startCol targetRow targetCol");
+        }
+        return new Position[] {
+            board.positionAt(Integer.parseInt(fields[0]), Integer.parseInt(fields[1])),
+            board.positionAt(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]))
+        };
+    }
+
+    private static String error(int lineNumber, RuntimeException exception) {
+        String message = exception.getMessage() == null ? exception.getClass().getSimpleName() : exception.getMessage();
+        return "{\"line\":" + lineNumber + ",\"error\":\"" + escape(message) + "\"}";
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                this.sendError(exchange, 405, "metrics must be read with GET");
+                return;
+            }
+            double seconds = (System.nanoTime() - this.startNanos) / NANOS_PER_SECOND;
+            LatencyHistogram latencies = this.queryLatencies;
+            StringBuilder json = new StringBuilder("{");
+            json.append("\"uptimeSeconds\":").append(format(seconds));
+            json.append(",\"requests\":").append(this.requests.sum());
+            json.append(",\"queries\":").append(latencies.getCount());
+            json.append(",\"badLines\":").append(this.badLines.sum());
+            json.append(",\"failedQueries\":").append(this.failedQueries.sum());
+            json.append(",\"queriesPerSecond\":").append(format(latencies.getCount() / seconds));
+            json.append(",\"latencyMicros\":{\"mean\":").append(format(latencies.getMean() / NANOS_PER_MICRO));
+            json.append(",\"p50\":").append(format(latencies.getValueAtPercentile(50) / NANOS_PER_MICRO));
+            json.append(",\"p99\":").append(format(latencies.getValueAtPercentile(99) / NANOS_PER_MICRO));
+            json.append(",\"p999\":").append(format(latencies.getValueAtPercentile(99.9) / NANOS_PER_MICRO));
+            json.append(",\"max\":").append(format(latencies.getMax() / NANOS_PER_MICRO)).append('}');
+            SolverMetrics search = this.searchMetrics;
+            if (search != null) {
+                json.append(",\"search\":{\"queries\":").append(search.getQueryCount());
+                json.append(",\"unreachable\":").append(search.getUnreachableCount());
+                json.append(",\"nodesExpanded\":").append(search.getNodesExpanded());
+                json.append(",\"nodesReached\":").append(search.getNodesReached());
+                json.append(",\"neighborsSkipped\":").append(search.getNeighborsSkipped());
+                json.append(",\"peakFrontier\":").append(search.getPeakFrontier()).append('}');
+            }
+            this.send(exchange, 200, json.append("}\n").toString());
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        this.send(exchange, status, "{\"error\":\"" + escape(message) + "\"}\n");
+    }
+
+    private void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+            if (character == '"' || character == '\\') {
+                escaped.append('\\').append(character);
+            } else if (character < ' ') {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) character));
+            } else {
+                escaped.append(character);
+            }
+        }
+        return escaped.toString();
+    }
+}
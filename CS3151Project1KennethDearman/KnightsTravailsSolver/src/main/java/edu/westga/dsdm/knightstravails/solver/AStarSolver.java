@@ -0,0 +1,216 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.MoveSet;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * The AStarSolver finds shortest paths with an A* search. Its heuristic is the
+ * lower bound of the piece's move set. For the knight that is the largest of
+ * ceil(dr / 2), ceil(dc / 2) and ceil((dr + dc) / 3), raised by one when needed
+ * to match the parity of dr + dc, since every knight move flips the color of
+ * the square. The heuristic never overestimates and changes by at most one per
+ * move, so the first time the target is taken off the open list its path is a
+ * shortest one. Buffers are reused between queries and instances are not safe
+ * to share between threads. Knight queries on boards too large for the buffers
+ * are answered by the large board search.
+ *
+ * @author Kenneth Dearman
+ */
+public class AStarSolver implements Solver {
+    private static final int CELL_BITS = 24;
+    private static final int COST_BITS = 20;
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+    private static final long MAX_COST = (1L << COST_BITS) - 1;
+
+    private final BoardGeometry board;
+    private final Piece piece;
+    private final MoveSet moves;
+    private final int cols;
+    private int[] offsets;
+    private int[] targets;
+    private int[] cost;
+    private int[] previous;
+    private int[] touched;
+    private int touchedCount;
+    private LongMinHeap heap;
+
+    /**
+     * Instantiates a new A* solver for the knight on the specified board.
+     *
+     * @param board the board to solve on
+     * @pre board != null
+     * @post none
+     */
+    public AStarSolver(BoardGeometry board) {
+        this(board, Piece.KNIGHT);
+    }
+
+    /**
+     * Instantiates a new A* solver for the specified piece on the specified
+     * board. The large board search only knows knight moves, so for other pieces
+     * the board must be small enough for the buffers.
+     *
+     * @param board the board to solve on
+     * @param piece the piece that moves
+     * @pre board != null && piece != null
+     *      && (piece.isKnight() || board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS)
+     * @post getPiece() == piece
+     */
+    public AStarSolver(BoardGeometry board, Piece piece) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (piece == null) {
+            throw new IllegalArgumentException("Piece cannot be null.");
+        }
+        if (!piece.isKnight() && board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large to search for the " + piece.name() + ".");
+        }
+        this.board = board;
+        this.piece = piece;
+        this.moves = piece.moves();
+        this.cols = board.cols();
+    }
+
+    @Override
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    @Override
+    public Piece getPiece() {
+        return this.piece;
+    }
+
+    @Override
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        if (this.board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            return new LargeBoardSearch(this.board).findPath(startPos, endPos);
+        }
+        int start = this.board.indexOf(startPos);
+        int end = this.board.indexOf(endPos);
+        if (!this.search(start, end)) {
+            return null;
+        }
+        return SolutionPath.fromPredecessors(this.cols, this.previous, start, end);
+    }
+
+    @Override
+    public int distance(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        if (this.piece.isKnight() && KnightDistance.appliesTo(this.board)) {
+            return KnightDistance.onBoard(this.board, startPos.row(), startPos.col(), endPos.row(), endPos.col());
+        }
+        SolutionPath path = this.findPath(startPos, endPos);
+        if (path == null) {
+            return -1;
+        }
+        return path.length();
+    }
+
+    /**
+     * Gets the lower bound on the number of knight moves between two cells.
+     *
+     * @param rowDifference the row difference between the cells
+     * @param colDifference the column difference between the cells
+     * @pre none
+     * @post none
+     * @return a lower bound that never exceeds the knight distance
+     */
+    public static int lowerBound(int rowDifference, int colDifference) {
+        return Piece.KNIGHT.moves().lowerBound(rowDifference, colDifference);
+    }
+
+    private void checkPositions(Position startPos, Position endPos) {
+        if (startPos == null || endPos == null) {
+            throw new IllegalArgumentException("Either start or end position cannot be null.");
+        }
+        if (!this.board.contains(startPos) || !this.board.contains(endPos)) {
+            throw new IllegalArgumentException("Either start or end position is not on the board.");
+        }
+    }
+
+    /**
+     * Runs the search from start until end is taken off the open list.
+     *
+     * @param start the start cell
+     * @param end the end cell
+     * @return true if end was reached, false otherwise
+     */
+    private boolean search(int start, int end) {
+        this.prepareBuffers();
+        int endRow = end / this.cols;
+        int endCol = end % this.cols;
+        this.visit(start, 0, start);
+        this.push(start, 0, this.moves.lowerBound(endRow - start / this.cols, endCol - start % this.cols));
+
+        while (!this.heap.isEmpty()) {
+            long entry = this.heap.pop();
+            int original = (int) (entry & CELL_MASK);
+            int originalCost = (int) (MAX_COST - ((entry >>> CELL_BITS) & MAX_COST));
+            if (originalCost > this.cost[original]) {
+                continue;
+            }
+            if (original == end) {
+                return true;
+            }
+            int nextCost = originalCost + 1;
+
+            for (int edge = this.offsets[original]; edge < this.offsets[original + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (this.cost[neighbor] == -1 || nextCost < this.cost[neighbor]) {
+                    this.visit(neighbor, nextCost, original);
+                    this.push(neighbor, nextCost, nextCost + this.moves.lowerBound(endRow - neighbor / this.cols, endCol - neighbor % this.cols));
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Allocates the buffers on first use and clears the cells the previous search touched.
+     */
+    private void prepareBuffers() {
+        if (this.cost == null) {
+            KnightMoveGraph graph = KnightMoveGraph.forPiece(this.board, this.piece);
+            this.offsets = graph.offsets();
+            this.targets = graph.targets();
+            int cellCount = graph.getCellCount();
+            this.cost = new int[cellCount];
+            this.previous = new int[cellCount];
+            this.touched = new int[cellCount];
+            this.heap = new LongMinHeap();
+            Arrays.fill(this.cost, -1);
+        }
+        for (int i = 0; i < this.touchedCount; i++) {
+            this.cost[this.touched[i]] = -1;
+        }
+        this.touchedCount = 0;
+        this.heap.clear();
+    }
+
+    private void visit(int cell, int cellCost, int predecessor) {
+        if (this.cost[cell] == -1) {
+            this.touched[this.touchedCount++] = cell;
+        }
+        this.cost[cell] = cellCost;
+        this.previous[cell] = predecessor;
+    }
+
+    /**
+     * Adds a cell to the open list. Entries are ordered by estimated total cost,
+     * then by larger cost so far, which favors cells closer to the target.
+     *
+     * @param cell the cell
+     * @param cellCost the number of moves to reach the cell
+     * @param estimate the estimated total number of moves through the cell
+     */
+    private void push(int cell, int cellCost, int estimate) {
+        this.heap.push(((long) estimate << (CELL_BITS + COST_BITS)) | ((MAX_COST - cellCost) << CELL_BITS) | cell);
+    }
+}
@@ -0,0 +1,419 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The AllPairsTable stores the knight distance and the next hop on a shortest
+ * path for every (start, end) pair of cells on a board. Cells are encoded as
+ * row * cols + col. A table is built once per board size, the first time it is
+ * requested, and is shared by every solver that asks for the same board size.
+ *
+ * <p>Distances are kept as unsigned 16 bit chars. A board of at most
+ * MAX_MAPPED_CELLS squares can have knight distances far above what a byte
+ * holds, for example on a board two squares wide.</p>
+ *
+ * <p>A table can also be kept in a file, so it is built once rather than once
+ * per run. The file holds a 16 byte header (magic, FORMAT_VERSION, rows, cols
+ * as little-endian ints), then one distance char per pair, then one next hop
+ * char per pair, all little-endian. Pairs are stored end-major, at
+ * end * cellCount + start, so both building a table and walking a path read
+ * and write one contiguous row. The file is memory-mapped read-only and is
+ * read in place.
+ *
+ * @author Kenneth Dearman
+ */
+public final class AllPairsTable {
+    /**
+     * The largest number of cells a table can be built for in memory.
+     */
+    public static final int MAX_CELLS = 4096;
+
+    /**
+     * The largest number of cells a file-backed table can be built for.
+     */
+    public static final int MAX_MAPPED_CELLS = 1 << 14;
+
+    /**
+     * The version of the file format. Files with another version are rebuilt.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    /**
+     * The distance stored for a pair of cells that cannot reach each other.
+     */
+    public static final int UNREACHABLE = -1;
+
+    private static final int MAGIC = 0x4B544150;
+    private static final int HEADER_BYTES = 16;
+    private static final char NOT_REACHED = Character.MAX_VALUE;
+
+    private static final Map<Long, CompletableFuture<AllPairsTable>> TABLES = new ConcurrentHashMap<>();
+
+    private final int rows;
+    private final int cols;
+    private final int cellCount;
+    private final CharBuffer distances;
+    private final CharBuffer nextHops;
+    private final boolean mapped;
+
+    /**
+     * Gets the shared table for a board with the specified dimensions, building it
+     * in memory the first time it is requested.
+     *
+     * @param rows the number of rows of the board
+     * @param cols the number of columns of the board
+     * @pre rows > 0 && cols > 0 && (rows * cols <= MAX_CELLS or a file-backed table of the board was loaded)
+     * @post none
+     * @return the all-pairs table for the board
+     */
+    public static AllPairsTable forBoard(int rows, int cols) {
+        CompletableFuture<AllPairsTable> table = TABLES.get(key(rows, cols));
+        if (table != null) {
+            return await(table);
+        }
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for an all-pairs table.");
+        }
+        CompletableFuture<AllPairsTable> claimed = new CompletableFuture<>();
+        table = TABLES.putIfAbsent(key(rows, cols), claimed);
+        if (table != null) {
+            return await(table);
+        }
+        try {
+            AllPairsTable built = inMemory(rows, cols);
+            claimed.complete(built);
+            return built;
+        } catch (RuntimeException | Error exception) {
+            TABLES.remove(key(rows, cols), claimed);
+            claimed.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Gets the shared table for a board with the specified dimensions, backed by
+     * a file in the specified directory. A current file is mapped as it is. A
+     * missing or stale file is rebuilt and replaced. If the file cannot be read
+     * or written, a table already built in memory is kept, a board of at most
+     * MAX_CELLS cells is built in memory, and a larger board fails.
+     *
+     * <p>Only one thread builds the table of a board. It builds outside the
+     * lock of the shared map, and other threads asking for the same board wait
+     * for it.</p>
+     *
+     * @param rows the number of rows of the board
+     * @param cols the number of columns of the board
+     * @param directory the directory of the table files
+     * @pre rows > 0 && cols > 0 && rows * cols <= MAX_MAPPED_CELLS && directory != null
+     * @post getRows() == rows && getCols() == cols
+     * @return the all-pairs table for the board
+     * @throws UncheckedIOException if the file cannot be read or written and the board has more than MAX_CELLS cells
+     */
+    public static AllPairsTable forBoard(int rows, int cols, Path directory) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > MAX_MAPPED_CELLS) {
+            throw new IllegalArgumentException("board is too large for an all-pairs table.");
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null.");
+        }
+        long key = key(rows, cols);
+        CompletableFuture<AllPairsTable> claimed = new CompletableFuture<>();
+        CompletableFuture<AllPairsTable> previous;
+        AllPairsTable existing;
+        while (true) {
+            previous = TABLES.get(key);
+            existing = previous == null ? null : await(previous);
+            if (existing != null && existing.mapped) {
+                return existing;
+            }
+            if (previous == null ? TABLES.putIfAbsent(key, claimed) == null : TABLES.replace(key, previous, claimed)) {
+                break;
+            }
+        }
+
+        try {
+            AllPairsTable table = loadOrBuild(directory, rows, cols, existing);
+            claimed.complete(table);
+            return table;
+        } catch (RuntimeException | Error exception) {
+            if (previous == null) {
+                TABLES.remove(key, claimed);
+            } else {
+                TABLES.replace(key, claimed, previous);
+            }
+            claimed.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    private static AllPairsTable loadOrBuild(Path directory, int rows, int cols, AllPairsTable existing) {
+        Path file = directory.resolve(fileName(rows, cols));
+        try {
+            AllPairsTable table = open(file, rows, cols);
+            return table != null ? table : build(directory, file, rows, cols);
+        } catch (IOException exception) {
+            if (existing != null) {
+                return existing;
+            }
+            if (rows * cols > MAX_CELLS) {
+                throw new UncheckedIOException("cannot keep the all-pairs table in " + file, exception);
+            }
+            return inMemory(rows, cols);
+        }
+    }
+
+    /**
+     * Waits for a table another thread is building.
+     *
+     * @return the table
+     */
+    private static AllPairsTable await(CompletableFuture<AllPairsTable> table) {
+        try {
+            return table.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Checks whether forBoard(rows, cols) can answer for a board: it is small
+     * enough to be built in memory, or its table has been loaded from a file.
+     *
+     * @param rows the number of rows of the board
+     * @param cols the number of columns of the board
+     * @pre none
+     * @post none
+     * @return true if the table of the board can be had without a directory
+     */
+    public static boolean isAvailable(int rows, int cols) {
+        return rows > 0 && cols > 0 && ((long) rows * cols <= MAX_CELLS || TABLES.containsKey(key(rows, cols)));
+    }
+
+    /**
+     * Gets the name of the table file of a board.
+     *
+     * @param rows the number of rows of the board
+     * @param cols the number of columns of the board
+     * @pre none
+     * @post none
+     * @return the file name
+     */
+    public static String fileName(int rows, int cols) {
+        return "knight-table-" + rows + "x" + cols + ".v" + FORMAT_VERSION + ".bin";
+    }
+
+    private static long key(int rows, int cols) {
+        return ((long) rows << 32) | cols;
+    }
+
+    private static long fileSize(int cellCount) {
+        long pairs = (long) cellCount * cellCount;
+        return hopOffset(pairs) + 2 * pairs;
+    }
+
+    private static long hopOffset(long pairs) {
+        return HEADER_BYTES + 2 * pairs;
+    }
+
+    private static AllPairsTable inMemory(int rows, int cols) {
+        int pairs = rows * cols * rows * cols;
+        CharBuffer distances = CharBuffer.allocate(pairs);
+        CharBuffer nextHops = CharBuffer.allocate(pairs);
+        AllPairsTable table = new AllPairsTable(rows, cols, distances, nextHops, false);
+        table.fill();
+        return table;
+    }
+
+    /**
+     * Maps an existing table file.
+     *
+     * @return the table, or null if the file is missing or stale
+     */
+    private static AllPairsTable open(Path file, int rows, int cols) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != fileSize(rows * cols)) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getInt(8) != rows || buffer.getInt(12) != cols) {
+                return null;
+            }
+            return fromFileBuffer(buffer, rows, cols);
+        }
+    }
+
+    /**
+     * Builds a table straight into a new file, then moves the file into place, so
+     * other readers never see a partly written table.
+     */
+    private static AllPairsTable build(Path directory, Path file, int rows, int cols) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, fileName(rows, cols), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(rows * cols));
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(8, rows).putInt(12, cols);
+                fromFileBuffer(buffer, rows, cols).fill();
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        AllPairsTable table = open(file, rows, cols);
+        if (table == null) {
+            throw new IOException("table file " + file + " changed while it was written");
+        }
+        return table;
+    }
+
+    private static AllPairsTable fromFileBuffer(ByteBuffer buffer, int rows, int cols) {
+        int pairs = rows * cols * rows * cols;
+        CharBuffer distances = buffer.slice(HEADER_BYTES, 2 * pairs).order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+        CharBuffer nextHops = buffer.slice((int) hopOffset(pairs), 2 * pairs).order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+        return new AllPairsTable(rows, cols, distances, nextHops, true);
+    }
+
+    private AllPairsTable(int rows, int cols, CharBuffer distances, CharBuffer nextHops, boolean mapped) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cellCount = rows * cols;
+        this.distances = distances;
+        this.nextHops = nextHops;
+        this.mapped = mapped;
+    }
+
+    private void fill() {
+        KnightMoveGraph graph = KnightMoveGraph.forBoard(new BoardGeometry(this.rows, this.cols));
+        int[] queue = new int[this.cellCount];
+        for (int end = 0; end < this.cellCount; end++) {
+            this.fillTowards(graph, end, queue);
+        }
+    }
+
+    /**
+     * Runs one breadth first search rooted at the end cell. The search parent of
+     * every reached cell is its next hop towards the end cell.
+     *
+     * @param graph the knight move graph of the board
+     * @param end the end cell
+     * @param queue scratch space for the search queue
+     */
+    private void fillTowards(KnightMoveGraph graph, int end, int[] queue) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int row = end * this.cellCount;
+        for (int start = 0; start < this.cellCount; start++) {
+            this.distances.put(row + start, NOT_REACHED);
+        }
+        this.distances.put(row + end, (char) 0);
+        this.nextHops.put(row + end, (char) end);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = end;
+
+        while (head < tail) {
+            int original = queue[head++];
+            char nextDistance = (char) (this.distances.get(row + original) + 1);
+
+            for (int edge = offsets[original]; edge < offsets[original + 1]; edge++) {
+                int neighbor = targets[edge];
+                int entry = row + neighbor;
+
+                if (this.distances.get(entry) == NOT_REACHED) {
+                    this.distances.put(entry, nextDistance);
+                    this.nextHops.put(entry, (char) original);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the table is read from a memory-mapped file.
+     *
+     * @return true if the table is file-backed, false if it lives on the heap
+     * @pre none
+     * @post none
+     */
+    public boolean isMapped() {
+        return this.mapped;
+    }
+
+    /**
+     * Gets the number of rows of the board.
+     *
+     * @return the number of rows
+     * @pre none
+     * @post none
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the number of columns of the board.
+     *
+     * @return the number of columns
+     * @pre none
+     * @post none
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Gets the knight distance between two cells.
+     *
+     * @param start the start cell
+     * @param end the end cell
+     * @pre 0 <= start, end < rows * cols
+     * @post none
+     * @return the minimum number of moves, or UNREACHABLE
+     */
+    public int distance(int start, int end) {
+        char distance = this.distances.get(end * this.cellCount + start);
+        return distance == NOT_REACHED ? UNREACHABLE : distance;
+    }
+
+    /**
+     * Gets the cell after start on a shortest path from start to end.
+     *
+     * @param start the start cell
+     * @param end the end cell
+     * @pre distance(start, end) != UNREACHABLE
+     * @post none
+     * @return the next cell on the path, or end if start == end
+     */
+    public int nextHop(int start, int end) {
+        return this.nextHops.get(end * this.cellCount + start);
+    }
+}
@@ -0,0 +1,177 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The BatchSolver answers many queries at once. Queries are grouped by starting
+ * square so one breadth first search tree answers every target of a group, and
+ * the groups are searched in parallel on a fork-join pool. Results are returned
+ * in the order of the queries. A batch solver may be shared between threads.
+ *
+ * @author Kenneth Dearman
+ */
+public class BatchSolver {
+    private final BoardGeometry board;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<BreadthFirstTree> trees;
+
+    /**
+     * Instantiates a new batch solver for the specified board that runs on the
+     * common fork-join pool.
+     *
+     * @param board the board to solve on
+     * @pre board != null
+     * @post none
+     */
+    public BatchSolver(BoardGeometry board) {
+        this(board, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new batch solver for the specified board that runs on the
+     * specified fork-join pool.
+     *
+     * @param board the board to solve on
+     * @param pool the pool the groups are searched on
+     * @pre board != null && pool != null
+     * @post none
+     */
+    public BatchSolver(BoardGeometry board, ForkJoinPool pool) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.board = board;
+        this.pool = pool;
+        this.trees = ThreadLocal.withInitial(() -> new BreadthFirstTree(board));
+    }
+
+    /**
+     * Gets the board the solver answers queries on.
+     *
+     * @pre none
+     * @post none
+     * @return the board geometry
+     */
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Solves every query of the stream.
+     *
+     * @param queries the queries
+     * @pre queries != null and every position is on the board
+     * @post none
+     * @return the solution paths in the order of the queries, with null for targets that cannot be reached
+     */
+    public List<SolutionPath> solveAll(Stream<PositionPair> queries) {
+        if (queries == null) {
+            throw new IllegalArgumentException("Queries cannot be null.");
+        }
+        return this.solveAll(queries.toArray(PositionPair[]::new));
+    }
+
+    /**
+     * Solves every query of the array.
+     *
+     * @param queries the queries
+     * @pre queries != null and every position is on the board
+     * @post none
+     * @return the solution paths in the order of the queries, with null for targets that cannot be reached
+     */
+    public List<SolutionPath> solveAll(PositionPair[] queries) {
+        if (queries == null) {
+            throw new IllegalArgumentException("Queries cannot be null.");
+        }
+        for (PositionPair query : queries) {
+            if (query == null || !this.board.contains(query.start()) || !this.board.contains(query.target())) {
+                throw new IllegalArgumentException("Every query must have a start and target on the board.");
+            }
+        }
+        SolutionPath[] results = new SolutionPath[queries.length];
+        if (this.board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            LargeBoardSearch search = new LargeBoardSearch(this.board);
+            this.pool.submit(() -> IntStream.range(0, queries.length).parallel()
+                    .forEach(i -> results[i] = search.findPath(queries[i].start(), queries[i].target()))).join();
+            return Arrays.asList(results);
+        }
+
+        int[] order = this.groupBySource(queries);
+        int[] groupStarts = this.findGroupStarts(queries, order);
+        this.pool.submit(() -> IntStream.range(0, groupStarts.length - 1).parallel()
+                .forEach(group -> this.solveGroup(queries, order, groupStarts[group], groupStarts[group + 1], results))).join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Answers every query of one group from a single search tree.
+     *
+     * @param queries the queries
+     * @param order the query indices sorted by start cell
+     * @param from the first position of the group in order
+     * @param to the position after the group in order
+     * @param results where each answer is stored at its query index
+     */
+    private void solveGroup(PositionPair[] queries, int[] order, int from, int to, SolutionPath[] results) {
+        BreadthFirstTree tree = this.trees.get();
+        tree.grow(this.cellOf(queries[order[from]].start()));
+        for (int i = from; i < to; i++) {
+            results[order[i]] = tree.pathTo(this.cellOf(queries[order[i]].target()));
+        }
+    }
+
+    /**
+     * Sorts the query indices by start cell with a counting sort.
+     *
+     * @param queries the queries
+     * @return the query indices sorted by start cell
+     */
+    private int[] groupBySource(PositionPair[] queries) {
+        int cellCount = (int) this.board.cellCount();
+        int[] offsets = new int[cellCount + 1];
+        for (PositionPair query : queries) {
+            offsets[this.cellOf(query.start()) + 1]++;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            offsets[cell + 1] += offsets[cell];
+        }
+        int[] order = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            order[offsets[this.cellOf(queries[i].start())]++] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Finds where each group of equal start cells begins.
+     *
+     * @param queries the queries
+     * @param order the query indices sorted by start cell
+     * @return the first position of every group in order, followed by order.length
+     */
+    private int[] findGroupStarts(PositionPair[] queries, int[] order) {
+        int[] starts = new int[order.length + 1];
+        int count = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == 0 || this.cellOf(queries[order[i]].start()) != this.cellOf(queries[order[i - 1]].start())) {
+                starts[count++] = i;
+            }
+        }
+        starts[count++] = order.length;
+        return Arrays.copyOf(starts, count);
+    }
+
+    private int cellOf(Position position) {
+        return this.board.indexOf(position);
+    }
+}
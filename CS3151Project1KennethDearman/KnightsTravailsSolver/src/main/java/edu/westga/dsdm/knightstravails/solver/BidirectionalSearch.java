@@ -0,0 +1,221 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * The BidirectionalSearch runs two breadth first searches, one from the start
+ * and one from the target, and stops when they meet. Each step expands a whole
+ * level of whichever side has the smaller frontier. Both frontiers only grow to
+ * about half the distance, which visits far fewer cells than a one-sided search
+ * on a large board. Buffers are reused between queries and instances are not
+ * safe to share between threads.
+ *
+ * @author Kenneth Dearman
+ */
+public class BidirectionalSearch {
+    private final int cols;
+    private final int[] offsets;
+    private final int[] targets;
+    private final Frontier forward;
+    private final Frontier backward;
+
+    /**
+     * Instantiates a new bidirectional search for knight moves on the specified board.
+     *
+     * @param board the board to search
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS
+     * @post none
+     */
+    public BidirectionalSearch(BoardGeometry board) {
+        this(board, Piece.KNIGHT);
+    }
+
+    /**
+     * Instantiates a new bidirectional search for the moves of a piece on the
+     * specified board. Move sets are reversible, so the backward search can use
+     * the same moves as the forward one.
+     *
+     * @param board the board to search
+     * @param piece the piece that moves
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS && piece != null
+     * @post none
+     */
+    public BidirectionalSearch(BoardGeometry board, Piece piece) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for a breadth first search.");
+        }
+        this.cols = board.cols();
+        KnightMoveGraph graph = KnightMoveGraph.forPiece(board, piece);
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.forward = new Frontier(graph.getCellCount());
+        this.backward = new Frontier(graph.getCellCount());
+    }
+
+    /**
+     * Finds a shortest path between the two positions.
+     *
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @pre startPos and endPos are on the board
+     * @post none
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        return this.findPath(startPos, endPos, null);
+    }
+
+    /**
+     * Finds a shortest path between the two positions and adds the work done by
+     * both sides to the counters.
+     *
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @param counters the counters to add to, or null to not count
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    SolutionPath findPath(Position startPos, Position endPos, SearchCounters counters) {
+        int start = startPos.row() * this.cols + startPos.col();
+        int end = endPos.row() * this.cols + endPos.col();
+        int meet = this.search(start, end);
+        if (counters == null) {
+            return meet == -1 ? null : this.buildPath(meet);
+        }
+        counters.addSearch(this.offsets, this.forward.queue, this.forward.previous, this.forward.head, this.forward.tail);
+        counters.addSearch(this.offsets, this.backward.queue, this.backward.previous, this.backward.head, this.backward.tail);
+        if (meet == -1) {
+            return null;
+        }
+        long pathStart = System.nanoTime();
+        SolutionPath path = this.buildPath(meet);
+        counters.pathNanos += System.nanoTime() - pathStart;
+        return path;
+    }
+
+    private SolutionPath buildPath(int meet) {
+        int forwardLength = this.forward.depth[meet];
+        long[] cells = new long[forwardLength + this.backward.depth[meet] + 1];
+        int current = meet;
+        for (int index = forwardLength; index >= 0; index--) {
+            cells[index] = current;
+            current = this.forward.previous[current];
+        }
+        current = meet;
+        for (int index = forwardLength + 1; index < cells.length; index++) {
+            current = this.backward.previous[current];
+            cells[index] = current;
+        }
+        return new SolutionPath(this.cols, cells);
+    }
+
+    /**
+     * Runs both searches until they meet.
+     *
+     * @param start the start cell
+     * @param end the end cell
+     * @return the cell where the searches met on a shortest path, or -1 if they never meet
+     */
+    private int search(int start, int end) {
+        this.forward.reset(start);
+        this.backward.reset(end);
+        if (start == end) {
+            return start;
+        }
+
+        while (!this.forward.isEmpty() && !this.backward.isEmpty()) {
+            int meet;
+            if (this.forward.size() <= this.backward.size()) {
+                meet = this.expandLevel(this.forward, this.backward);
+            } else {
+                meet = this.expandLevel(this.backward, this.forward);
+            }
+            if (meet != -1) {
+                return meet;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Expands every cell of the current level of one side. Of the cells where the
+     * sides meet during the level, the one on the shortest path is kept.
+     *
+     * @param side the side to expand
+     * @param other the opposite side
+     * @return the best meeting cell, or -1 if the sides did not meet
+     */
+    private int expandLevel(Frontier side, Frontier other) {
+        int levelEnd = side.tail;
+        int meet = -1;
+        int meetLength = Integer.MAX_VALUE;
+
+        while (side.head < levelEnd) {
+            int original = side.queue[side.head++];
+
+            for (int edge = this.offsets[original]; edge < this.offsets[original + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (side.depth[neighbor] == -1) {
+                    side.depth[neighbor] = side.depth[original] + 1;
+                    side.previous[neighbor] = original;
+                    side.queue[side.tail++] = neighbor;
+
+                    if (other.depth[neighbor] != -1 && side.depth[neighbor] + other.depth[neighbor] < meetLength) {
+                        meet = neighbor;
+                        meetLength = side.depth[neighbor] + other.depth[neighbor];
+                    }
+                }
+            }
+        }
+        return meet;
+    }
+
+    /**
+     * The queue, depths and predecessors of one side of the search.
+     */
+    private static final class Frontier {
+        private final int[] queue;
+        private final int[] depth;
+        private final int[] previous;
+        private int head;
+        private int tail;
+
+        private Frontier(int cellCount) {
+            this.queue = new int[cellCount];
+            this.depth = new int[cellCount];
+            this.previous = new int[cellCount];
+            Arrays.fill(this.depth, -1);
+        }
+
+        /**
+         * Forgets the cells the previous search reached and starts from the root.
+         * Every reached cell is still in the queue, so only those are cleared.
+         *
+         * @param root the cell this side starts from
+         */
+        private void reset(int root) {
+            for (int i = 0; i < this.tail; i++) {
+                this.depth[this.queue[i]] = -1;
+            }
+            this.head = 0;
+            this.tail = 0;
+            this.queue[this.tail++] = root;
+            this.depth[root] = 0;
+            this.previous[root] = root;
+        }
+
+        private boolean isEmpty() {
+            return this.head == this.tail;
+        }
+
+        private int size() {
+            return this.tail - this.head;
+        }
+    }
+}
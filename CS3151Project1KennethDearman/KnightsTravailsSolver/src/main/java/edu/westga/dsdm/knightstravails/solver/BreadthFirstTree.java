@@ -0,0 +1,103 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+
+import java.util.Arrays;
+
+/**
+ * The BreadthFirstTree holds the complete breadth first search tree of one root
+ * cell, so every target can be answered from a single search. Growing a new tree
+ * reuses the arrays of the previous one.
+ *
+ * @author Kenneth Dearman
+ */
+final class BreadthFirstTree {
+    private final int cols;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] queue;
+    private final int[] distance;
+    private final int[] parent;
+    private int reached;
+
+    BreadthFirstTree(BoardGeometry board) {
+        this(board, Piece.KNIGHT);
+    }
+
+    BreadthFirstTree(BoardGeometry board, Piece piece) {
+        this.cols = board.cols();
+        KnightMoveGraph graph = KnightMoveGraph.forPiece(board, piece);
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        int cellCount = graph.getCellCount();
+        this.queue = new int[cellCount];
+        this.distance = new int[cellCount];
+        this.parent = new int[cellCount];
+        Arrays.fill(this.distance, -1);
+    }
+
+    /**
+     * Replaces the tree with the breadth first search tree of the root cell.
+     *
+     * @param root the root cell
+     */
+    void grow(int root) {
+        for (int i = 0; i < this.reached; i++) {
+            this.distance[this.queue[i]] = -1;
+        }
+        int head = 0;
+        int tail = 0;
+        this.queue[tail++] = root;
+        this.distance[root] = 0;
+        this.parent[root] = root;
+
+        while (head < tail) {
+            int original = this.queue[head++];
+            int nextDistance = this.distance[original] + 1;
+
+            for (int edge = this.offsets[original]; edge < this.offsets[original + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (this.distance[neighbor] == -1) {
+                    this.distance[neighbor] = nextDistance;
+                    this.parent[neighbor] = original;
+                    this.queue[tail++] = neighbor;
+                }
+            }
+        }
+        this.reached = tail;
+    }
+
+    /**
+     * Gets the distance from the root to a cell.
+     *
+     * @param cell the cell
+     * @return the minimum number of moves, or -1 if the cell cannot be reached
+     */
+    int distanceTo(int cell) {
+        return this.distance[cell];
+    }
+
+    /**
+     * Gets the next cell on the way from a cell back to the root.
+     *
+     * @param cell a reached cell
+     * @return the parent of the cell, or the root itself for the root
+     */
+    int parentOf(int cell) {
+        return this.parent[cell];
+    }
+
+    /**
+     * Gets the path from the root to a cell.
+     *
+     * @param cell the cell
+     * @return the path from the root to the cell, or null if the cell cannot be reached
+     */
+    SolutionPath pathTo(int cell) {
+        if (this.distance[cell] == -1) {
+            return null;
+        }
+        return SolutionPath.fromPredecessors(this.cols, this.parent, this.queue[0], cell);
+    }
+}
@@ -0,0 +1,305 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The CachingSolver keeps a bounded number of solution paths of another solver.
+ * Solution paths are immutable, so one stored path is handed to every caller
+ * that asks for the same pair of positions. A distance query that misses
+ * stores only the number of moves; a later path query for the same pair is a
+ * miss and replaces it with the path. When the cache is full one result is
+ * dropped according to the eviction policy. A result only counts as a use for
+ * the least frequently used policy when it answers the query. Hits, misses and
+ * evictions of both kinds of query are counted. A caching solver is
+ * thread-safe when the solver it wraps is.
+ *
+ * <p>Concurrent misses on the same pair are passed on once: the first one
+ * runs the search and the others wait for its future and count as hits. A
+ * distance miss also waits for a path search of the same pair that is
+ * already running. If the search throws, every waiting query throws the same
+ * exception and nothing is stored.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public class CachingSolver implements Solver {
+    private final Solver delegate;
+    private final int capacity;
+    private final EvictionPolicy policy;
+    private final Map<PositionPair, CachedResult> paths;
+    private final Map<PositionPair, Integer> frequencies;
+    private final Map<Integer, LinkedHashSet<PositionPair>> frequencyBuckets;
+    private int minFrequency;
+    private final Map<PositionPair, CompletableFuture<CachedResult>> pendingPaths;
+    private final Map<PositionPair, CompletableFuture<CachedResult>> pendingDistances;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * Instantiates a new caching solver in front of the specified solver.
+     *
+     * @param delegate the solver whose results are cached
+     * @param capacity the largest number of results kept
+     * @param policy the eviction policy
+     * @pre delegate != null && capacity > 0 && policy != null
+     * @post getHits() == 0 && getMisses() == 0 && getEvictions() == 0
+     */
+    public CachingSolver(Solver delegate, int capacity, EvictionPolicy policy) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Solver cannot be null.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Eviction policy cannot be null.");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.policy = policy;
+        if (policy == EvictionPolicy.LEAST_RECENTLY_USED) {
+            this.paths = new LinkedHashMap<>(16, 0.75f, true);
+        } else {
+            this.paths = new HashMap<>();
+        }
+        this.frequencies = new HashMap<>();
+        this.frequencyBuckets = new HashMap<>();
+        this.pendingPaths = new ConcurrentHashMap<>();
+        this.pendingDistances = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    @Override
+    public BoardGeometry getBoard() {
+        return this.delegate.getBoard();
+    }
+
+    @Override
+    public Piece getPiece() {
+        return this.delegate.getPiece();
+    }
+
+    @Override
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        PositionPair key = new PositionPair(startPos, endPos);
+        return this.answer(key, true, this.pendingPaths, () -> {
+            SolutionPath path = this.delegate.findPath(startPos, endPos);
+            return new CachedResult(path, path == null ? -1 : path.length());
+        }).path();
+    }
+
+    @Override
+    public int distance(Position startPos, Position endPos) {
+        PositionPair key = new PositionPair(startPos, endPos);
+        return this.answer(key, false, this.pendingDistances,
+                () -> new CachedResult(null, this.delegate.distance(startPos, endPos))).moves();
+    }
+
+    /**
+     * Answers a query from the cache, from a search of the same pair that is
+     * already running, or by running the search and storing its result.
+     *
+     * @param key the pair of positions
+     * @param needPath whether the query needs the path
+     * @param pending the running searches of this kind of query
+     * @param search runs the search on the wrapped solver
+     * @return the result answering the query
+     */
+    private CachedResult answer(PositionPair key, boolean needPath,
+            Map<PositionPair, CompletableFuture<CachedResult>> pending, Supplier<CachedResult> search) {
+        CachedResult cached = this.lookUp(key, needPath);
+        if (cached != null) {
+            this.hits.increment();
+            return cached;
+        }
+        CompletableFuture<CachedResult> running = needPath ? null : this.pendingPaths.get(key);
+        CompletableFuture<CachedResult> own = new CompletableFuture<>();
+        if (running == null) {
+            running = pending.putIfAbsent(key, own);
+        }
+        if (running != null) {
+            this.hits.increment();
+            return await(running);
+        }
+        try {
+            cached = this.lookUp(key, needPath);
+            if (cached != null) {
+                this.hits.increment();
+            } else {
+                this.misses.increment();
+                cached = search.get();
+                this.store(key, cached);
+            }
+            own.complete(cached);
+            return cached;
+        } catch (RuntimeException | Error exception) {
+            own.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            pending.remove(key, own);
+        }
+    }
+
+    private static CachedResult await(CompletableFuture<CachedResult> running) {
+        try {
+            return running.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     *
+     * @pre none
+     * @post none
+     * @return the number of hits
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets the number of queries passed on to the wrapped solver.
+     *
+     * @pre none
+     * @post none
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Gets the number of results dropped to make room for new ones.
+     *
+     * @pre none
+     * @post none
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Gets the fraction of queries answered from the cache.
+     *
+     * @pre none
+     * @post none
+     * @return the hit rate, or 0 if there have been no queries
+     */
+    public double getHitRate() {
+        long hitCount = this.hits.sum();
+        long total = hitCount + this.misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of results in the cache.
+     *
+     * @pre none
+     * @post none
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return this.paths.size();
+    }
+
+    /**
+     * Gets the cached result of a pair if it answers the query, and counts the
+     * use for the least frequently used policy only then.
+     *
+     * @param key the pair of positions
+     * @param needPath whether the query needs the path
+     * @return the cached result, or null if there is none that answers the query
+     */
+    private synchronized CachedResult lookUp(PositionPair key, boolean needPath) {
+        CachedResult cached = this.paths.get(key);
+        if (cached == null || needPath && !cached.hasPath()) {
+            return null;
+        }
+        if (this.policy == EvictionPolicy.LEAST_FREQUENTLY_USED) {
+            int frequency = this.frequencies.get(key);
+            LinkedHashSet<PositionPair> bucket = this.frequencyBuckets.get(frequency);
+            bucket.remove(key);
+            if (bucket.isEmpty()) {
+                this.frequencyBuckets.remove(frequency);
+                if (this.minFrequency == frequency) {
+                    this.minFrequency++;
+                }
+            }
+            this.frequencies.put(key, frequency + 1);
+            this.frequencyBuckets.computeIfAbsent(frequency + 1, _ -> new LinkedHashSet<>()).add(key);
+        }
+        return cached;
+    }
+
+    private synchronized void store(PositionPair key, CachedResult result) {
+        CachedResult stored = this.paths.get(key);
+        if (stored != null) {
+            if (!stored.hasPath() && result.hasPath()) {
+                this.paths.put(key, result);
+            }
+            return;
+        }
+        if (this.paths.size() >= this.capacity) {
+            this.evict();
+        }
+        this.paths.put(key, result);
+        if (this.policy == EvictionPolicy.LEAST_FREQUENTLY_USED) {
+            this.frequencies.put(key, 1);
+            this.frequencyBuckets.computeIfAbsent(1, _ -> new LinkedHashSet<>()).add(key);
+            this.minFrequency = 1;
+        }
+    }
+
+    private void evict() {
+        PositionPair victim;
+        if (this.policy == EvictionPolicy.LEAST_RECENTLY_USED) {
+            victim = this.paths.keySet().iterator().next();
+        } else {
+            LinkedHashSet<PositionPair> bucket = this.frequencyBuckets.get(this.minFrequency);
+            victim = bucket.iterator().next();
+            bucket.remove(victim);
+            if (bucket.isEmpty()) {
+                this.frequencyBuckets.remove(this.minFrequency);
+            }
+            this.frequencies.remove(victim);
+        }
+        this.paths.remove(victim);
+        this.evictions.increment();
+    }
+
+    /**
+     * A cached answer: the number of moves, and the path unless only the
+     * distance was asked for. An unreachable pair needs no path.
+     *
+     * @param path the shortest path, or null
+     * @param moves the number of moves, or -1 if the end cannot be reached
+     */
+    private record CachedResult(SolutionPath path, int moves) {
+        boolean hasPath() {
+            return this.path != null || this.moves == -1;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A DistanceField holds the knight distance from the nearest of a set of source
+ * squares to every square of a board. It is filled by one breadth first search
+ * that starts from all sources at once. Distances are kept in a flat int array
+ * indexed by row * cols + col, and the bulk queries below are plain loops over
+ * that array without early exits, so the JIT can vectorize them. Knight moves
+ * are symmetric, so the field of a single source also gives the distance from
+ * every square to that source.
+ *
+ * @author Kenneth Dearman
+ */
+public final class DistanceField {
+    /**
+     * The distance stored for a square that was not reached, either because it
+     * cannot be reached or because it lies beyond the distance limit.
+     */
+    public static final int UNREACHED = -1;
+
+    /**
+     * The distance limit of a field that is searched to the end.
+     */
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private final BoardGeometry board;
+    private final int limit;
+    private final int[] distances;
+    private int farthest;
+
+    /**
+     * Computes the distance field of a single source square.
+     *
+     * @param board the board
+     * @param source the source square
+     * @pre board != null && board.cellCount() <= KnightMoveGraph.MAX_CELLS && source != null && board.contains(source)
+     * @post getLimit() == NO_LIMIT
+     * @return the distance field
+     */
+    public static DistanceField from(BoardGeometry board, Position source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source cannot be null.");
+        }
+        return from(board, List.of(source), NO_LIMIT);
+    }
+
+    /**
+     * Computes the distance field of a set of source squares.
+     *
+     * @param board the board
+     * @param sources the source squares
+     * @pre board != null && board.cellCount() <= KnightMoveGraph.MAX_CELLS && sources != null && !sources.isEmpty()
+     *      && every source is on the board
+     * @post getLimit() == NO_LIMIT
+     * @return the distance field
+     */
+    public static DistanceField from(BoardGeometry board, Collection<Position> sources) {
+        return from(board, sources, NO_LIMIT);
+    }
+
+    /**
+     * Computes the distance field of a set of source squares, stopping once every
+     * square within maxDistance moves has been reached. Squares farther away are
+     * left UNREACHED.
+     *
+     * @param board the board
+     * @param sources the source squares
+     * @param maxDistance the largest distance to search to
+     * @pre board != null && board.cellCount() <= KnightMoveGraph.MAX_CELLS && sources != null && !sources.isEmpty()
+     *      && every source is on the board && maxDistance >= 0
+     * @post getLimit() == maxDistance
+     * @return the distance field
+     */
+    public static DistanceField from(BoardGeometry board, Collection<Position> sources, int maxDistance) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (sources == null || sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source is needed.");
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("The distance limit cannot be negative.");
+        }
+        KnightMoveGraph graph = KnightMoveGraph.forBoard(board);
+        DistanceField field = new DistanceField(board, maxDistance, graph.getCellCount());
+        field.search(graph, sources);
+        return field;
+    }
+
+    private DistanceField(BoardGeometry board, int limit, int cellCount) {
+        this.board = board;
+        this.limit = limit;
+        this.distances = new int[cellCount];
+        Arrays.fill(this.distances, UNREACHED);
+    }
+
+    /**
+     * Runs the multi-source search one level at a time, so the level can be
+     * compared with the limit once instead of once per cell.
+     *
+     * @param graph the knight move graph of the board
+     * @param sources the source squares
+     */
+    private void search(KnightMoveGraph graph, Collection<Position> sources) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] queue = new int[this.distances.length];
+        int tail = 0;
+        for (Position source : sources) {
+            int cell = this.board.indexOf(source);
+            if (this.distances[cell] == UNREACHED) {
+                this.distances[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        int head = 0;
+
+        for (int level = 0; head < tail && level < this.limit; level++) {
+            int levelEnd = tail;
+            int nextDistance = level + 1;
+            while (head < levelEnd) {
+                int original = queue[head++];
+                for (int edge = offsets[original]; edge < offsets[original + 1]; edge++) {
+                    int neighbor = targets[edge];
+                    if (this.distances[neighbor] == UNREACHED) {
+                        this.distances[neighbor] = nextDistance;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        this.farthest = this.distances[queue[tail - 1]];
+    }
+
+    /**
+     * Gets the board of the field.
+     *
+     * @pre none
+     * @post none
+     * @return the board geometry
+     */
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the distance the search was limited to.
+     *
+     * @pre none
+     * @post none
+     * @return the distance limit, or NO_LIMIT
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the distance from the nearest source to a square.
+     *
+     * @param position the square
+     * @pre position != null && getBoard().contains(position)
+     * @post none
+     * @return the number of moves, or UNREACHED
+     */
+    public int distanceTo(Position position) {
+        return this.distances[this.board.indexOf(position)];
+    }
+
+    /**
+     * Gets the distance from the nearest source to a cell.
+     *
+     * @param cell the cell, as row * cols + col
+     * @pre 0 <= cell < getBoard().cellCount()
+     * @post none
+     * @return the number of moves, or UNREACHED
+     */
+    public int distanceTo(int cell) {
+        return this.distances[cell];
+    }
+
+    /**
+     * Gets the largest distance in the field.
+     *
+     * @pre none
+     * @post none
+     * @return the distance of the farthest reached square
+     */
+    public int getFarthestDistance() {
+        return this.farthest;
+    }
+
+    /**
+     * Counts the squares within a number of moves of the nearest source.
+     *
+     * @param maxDistance the largest distance counted
+     * @pre none
+     * @post none
+     * @return the number of reached squares with distance <= maxDistance
+     */
+    public int countWithin(int maxDistance) {
+        int count = 0;
+        for (int distance : this.distances) {
+            count += (distance >= 0 & distance <= maxDistance) ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sum of the distances of every reached square.
+     *
+     * @pre none
+     * @post none
+     * @return the total distance
+     */
+    public long totalDistance() {
+        long total = 0;
+        for (int distance : this.distances) {
+            total += Math.max(distance, 0);
+        }
+        return total;
+    }
+
+    /**
+     * Counts the reached squares at every distance.
+     *
+     * @pre none
+     * @post none
+     * @return an array whose entry d is the number of squares at distance d
+     */
+    public int[] histogram() {
+        int[] counts = new int[this.farthest + 1];
+        for (int distance : this.distances) {
+            if (distance >= 0) {
+                counts[distance]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Copies the distances into a new array indexed by row * cols + col.
+     *
+     * @pre none
+     * @post none
+     * @return the distance of every cell, or UNREACHED
+     */
+    public int[] toArray() {
+        return this.distances.clone();
+    }
+}
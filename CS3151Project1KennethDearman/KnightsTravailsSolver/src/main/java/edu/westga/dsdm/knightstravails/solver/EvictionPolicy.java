@@ -0,0 +1,18 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+/**
+ * The ways a CachingSolver can choose which result to drop when it is full.
+ *
+ * @author Kenneth Dearman
+ */
+public enum EvictionPolicy {
+    /**
+     * Drops the result that was used longest ago.
+     */
+    LEAST_RECENTLY_USED,
+
+    /**
+     * Drops the result that was used the fewest times, the oldest of those first.
+     */
+    LEAST_FREQUENTLY_USED
+}
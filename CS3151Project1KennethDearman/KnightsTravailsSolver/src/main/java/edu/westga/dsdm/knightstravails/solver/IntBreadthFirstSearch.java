@@ -0,0 +1,177 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+
+/**
+ * The IntBreadthFirstSearch runs breadth first searches on cells encoded as
+ * row * cols + col. It keeps its queue, predecessor array and visited bitset
+ * between queries, so a query allocates nothing except the returned path.
+ * Neighbors are read from the shared KnightMoveGraph of the board.
+ * Instances are not safe to share between threads.
+ *
+ * @author Kenneth Dearman
+ */
+public class IntBreadthFirstSearch {
+    /**
+     * The largest number of cells a search can be run on.
+     */
+    public static final int MAX_CELLS = KnightMoveGraph.MAX_CELLS;
+
+    private final int cols;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] queue;
+    private final int queueMask;
+    private final int[] previous;
+    private final long[] visited;
+    private final int[] dirtyWords;
+    private int dirtyCount;
+    private int expanded;
+    private int reached;
+
+    /**
+     * Instantiates a new search engine for knight moves on the specified board.
+     *
+     * @param board the board to search
+     * @pre board != null && board.cellCount() <= MAX_CELLS
+     * @post none
+     */
+    public IntBreadthFirstSearch(BoardGeometry board) {
+        this(board, Piece.KNIGHT);
+    }
+
+    /**
+     * Instantiates a new search engine for the moves of a piece on the specified board.
+     *
+     * @param board the board to search
+     * @param piece the piece that moves
+     * @pre board != null && board.cellCount() <= MAX_CELLS && piece != null
+     * @post none
+     */
+    public IntBreadthFirstSearch(BoardGeometry board, Piece piece) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (board.cellCount() > MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for a breadth first search.");
+        }
+        this.cols = board.cols();
+        KnightMoveGraph graph = KnightMoveGraph.forPiece(board, piece);
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        int cellCount = graph.getCellCount();
+        // every cell is queued at most once, so a capacity above the cell count never wraps onto the head
+        int capacity = Integer.highestOneBit(cellCount) << 1;
+        this.queue = new int[capacity];
+        this.queueMask = capacity - 1;
+        this.previous = new int[cellCount];
+        this.visited = new long[(cellCount + 63) >>> 6];
+        this.dirtyWords = new int[this.visited.length];
+    }
+
+    /**
+     * Finds a shortest path between the two positions.
+     *
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @pre startPos and endPos are on the board
+     * @post none
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        return this.findPath(startPos, endPos, null);
+    }
+
+    /**
+     * Finds a shortest path between the two positions and adds the work done to
+     * the counters.
+     *
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @param counters the counters to add to, or null to not count
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    SolutionPath findPath(Position startPos, Position endPos, SearchCounters counters) {
+        int start = startPos.row() * this.cols + startPos.col();
+        int end = endPos.row() * this.cols + endPos.col();
+        boolean found = this.search(start, end);
+        if (counters == null) {
+            return found ? SolutionPath.fromPredecessors(this.cols, this.previous, start, end) : null;
+        }
+        counters.addSearch(this.offsets, this.queue, this.previous, this.expanded, this.reached);
+        if (!found) {
+            return null;
+        }
+        long pathStart = System.nanoTime();
+        SolutionPath path = SolutionPath.fromPredecessors(this.cols, this.previous, start, end);
+        counters.pathNanos += System.nanoTime() - pathStart;
+        return path;
+    }
+
+    /**
+     * Runs the search from start until end is dequeued. Afterwards the
+     * predecessor array links end back to start, and the queue holds every
+     * reached cell in the order it was reached.
+     *
+     * @param start the start cell
+     * @param end the end cell
+     * @return true if end was reached, false otherwise
+     */
+    private boolean search(int start, int end) {
+        this.clearVisited();
+        int head = 0;
+        int tail = 0;
+        this.queue[tail] = start;
+        tail = (tail + 1) & this.queueMask;
+        this.markVisited(start);
+        this.previous[start] = start;
+
+        while (head != tail) {
+            int original = this.queue[head];
+            head = (head + 1) & this.queueMask;
+            if (original == end) {
+                this.expanded = head - 1;
+                this.reached = tail;
+                return true;
+            }
+
+            for (int edge = this.offsets[original]; edge < this.offsets[original + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (!this.isVisited(neighbor)) {
+                    this.markVisited(neighbor);
+                    this.previous[neighbor] = original;
+                    this.queue[tail] = neighbor;
+                    tail = (tail + 1) & this.queueMask;
+                }
+            }
+        }
+        this.expanded = head;
+        this.reached = tail;
+        return false;
+    }
+
+    private boolean isVisited(int cell) {
+        return (this.visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void markVisited(int cell) {
+        int word = cell >>> 6;
+        if (this.visited[word] == 0) {
+            this.dirtyWords[this.dirtyCount++] = word;
+        }
+        this.visited[word] |= 1L << cell;
+    }
+
+    /**
+     * Clears only the bitset words the previous search touched.
+     */
+    private void clearVisited() {
+        for (int i = 0; i < this.dirtyCount; i++) {
+            this.visited[this.dirtyWords[i]] = 0;
+        }
+        this.dirtyCount = 0;
+    }
+}
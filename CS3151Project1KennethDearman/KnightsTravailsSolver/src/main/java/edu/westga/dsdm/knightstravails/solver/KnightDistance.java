@@ -0,0 +1,85 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+
+/**
+ * KnightDistance computes the minimum number of knight moves between two cells
+ * in constant time. On an unbounded board the distance only depends on the row
+ * and column differences. On a board whose sides are at least
+ * MIN_OPEN_DIMENSION long the same formula holds everywhere except between a
+ * corner and its diagonal neighbor, which takes four moves instead of two.
+ *
+ * @author Kenneth Dearman
+ */
+public final class KnightDistance {
+    /**
+     * The shortest side a board can have for the closed form to apply.
+     */
+    public static final int MIN_OPEN_DIMENSION = 5;
+
+    private KnightDistance() {
+    }
+
+    /**
+     * Checks if the closed form gives exact distances on the specified board.
+     *
+     * @param board the board
+     * @pre board != null
+     * @post none
+     * @return true if the closed form applies, false otherwise
+     */
+    public static boolean appliesTo(BoardGeometry board) {
+        return Math.min(board.rows(), board.cols()) >= MIN_OPEN_DIMENSION;
+    }
+
+    /**
+     * Gets the knight distance between two cells on an unbounded board.
+     *
+     * @param rowDifference the row difference between the cells
+     * @param colDifference the column difference between the cells
+     * @pre none
+     * @post none
+     * @return the minimum number of moves
+     */
+    public static int onOpenBoard(int rowDifference, int colDifference) {
+        int longer = Math.max(Math.abs(rowDifference), Math.abs(colDifference));
+        int shorter = Math.min(Math.abs(rowDifference), Math.abs(colDifference));
+        if (longer == 1 && shorter == 0) {
+            return 3;
+        }
+        if (longer == 2 && shorter == 2) {
+            return 4;
+        }
+        int delta = longer - shorter;
+        if (shorter > delta) {
+            return delta - 2 * Math.floorDiv(delta - shorter, 3);
+        }
+        return delta - 2 * Math.floorDiv(delta - shorter, 4);
+    }
+
+    /**
+     * Gets the knight distance between two cells on the specified board.
+     *
+     * @param board the board
+     * @param startRow the row of the start cell
+     * @param startCol the column of the start cell
+     * @param endRow the row of the end cell
+     * @param endCol the column of the end cell
+     * @pre appliesTo(board) and both cells are on the board
+     * @post none
+     * @return the minimum number of moves
+     */
+    public static int onBoard(BoardGeometry board, int startRow, int startCol, int endRow, int endCol) {
+        int rowDifference = endRow - startRow;
+        int colDifference = endCol - startCol;
+        if (Math.abs(rowDifference) == 1 && Math.abs(colDifference) == 1
+                && (isCorner(board, startRow, startCol) || isCorner(board, endRow, endCol))) {
+            return 4;
+        }
+        return onOpenBoard(rowDifference, colDifference);
+    }
+
+    private static boolean isCorner(BoardGeometry board, int row, int col) {
+        return (row == 0 || row == board.rows() - 1) && (col == 0 || col == board.cols() - 1);
+    }
+}
@@ -0,0 +1,237 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.MoveSet;
+import edu.westga.dsdm.knightstravails.model.Piece;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The KnightMoveGraph stores the moves of a piece on a board in compressed
+ * sparse row form, by default those of the knight. Cells are encoded as
+ * row * cols + col, and the neighbors of a cell are targets[offsets[cell]] to
+ * targets[offsets[cell + 1] - 1], in the order of the steps of the piece's move
+ * set. The bounds checks are done once when the graph is built, so walking the
+ * neighbors of a cell is a plain array scan. A graph is shared by every solver
+ * that asks for the same board size and moves. The CACHED_GRAPHS most recently
+ * requested graphs are kept; an older graph lives only as long as the solvers
+ * that hold it, and is built again if it is asked for after it was dropped.
+ *
+ * @author Kenneth Dearman
+ */
+public final class KnightMoveGraph {
+    /**
+     * The largest number of cells a graph can be built for.
+     */
+    public static final int MAX_CELLS = 1 << 22;
+
+    /**
+     * The number of recently requested graphs kept by the shared cache.
+     */
+    public static final int CACHED_GRAPHS = 4;
+
+    private static final Map<GraphKey, KnightMoveGraph> GRAPHS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GraphKey, KnightMoveGraph> eldest) {
+            return this.size() > CACHED_GRAPHS;
+        }
+    };
+
+    private final int rows;
+    private final int cols;
+    private final MoveSet moves;
+    private final int[] offsets;
+    private final int[] targets;
+
+    /**
+     * Gets the shared graph for the specified board, building it the first time
+     * it is requested.
+     *
+     * @param board the board
+     * @pre board != null && board.cellCount() <= MAX_CELLS
+     * @post none
+     * @return the knight move graph of the board
+     */
+    public static KnightMoveGraph forBoard(BoardGeometry board) {
+        return forPiece(board, Piece.KNIGHT);
+    }
+
+    /**
+     * Gets the shared graph of the moves of a piece on the specified board,
+     * building it if it is not cached. The graph is built outside the lock of
+     * the cache, so two threads may build the same graph at once; the first one
+     * stored is returned to both.
+     *
+     * @param board the board
+     * @param piece the piece
+     * @pre board != null && board.cellCount() <= MAX_CELLS && piece != null
+     * @post none
+     * @return the move graph of the piece on the board
+     */
+    public static KnightMoveGraph forPiece(BoardGeometry board, Piece piece) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (piece == null) {
+            throw new IllegalArgumentException("Piece cannot be null.");
+        }
+        if (board.cellCount() > MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for a knight move graph.");
+        }
+        GraphKey key = new GraphKey(board.rows(), board.cols(), piece.moves());
+        synchronized (GRAPHS) {
+            KnightMoveGraph graph = GRAPHS.get(key);
+            if (graph != null) {
+                return graph;
+            }
+        }
+        KnightMoveGraph built = new KnightMoveGraph(board.rows(), board.cols(), piece.moves());
+        synchronized (GRAPHS) {
+            KnightMoveGraph graph = GRAPHS.putIfAbsent(key, built);
+            return graph != null ? graph : built;
+        }
+    }
+
+    private KnightMoveGraph(int rows, int cols, MoveSet moves) {
+        this.rows = rows;
+        this.cols = cols;
+        this.moves = moves;
+        int cellCount = rows * cols;
+        this.offsets = new int[cellCount + 1];
+        for (int cell = 0; cell < cellCount; cell++) {
+            this.offsets[cell + 1] = this.offsets[cell] + this.countMoves(cell / cols, cell % cols);
+        }
+        this.targets = new int[this.offsets[cellCount]];
+        int edge = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int move = 0; move < moves.size(); move++) {
+                int newRow = row + moves.rowStep(move);
+                int newCol = col + moves.colStep(move);
+                if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols) {
+                    this.targets[edge++] = newRow * cols + newCol;
+                }
+            }
+        }
+    }
+
+    private int countMoves(int row, int col) {
+        int count = 0;
+        for (int move = 0; move < this.moves.size(); move++) {
+            int newRow = row + this.moves.rowStep(move);
+            int newCol = col + this.moves.colStep(move);
+            if (newRow >= 0 && newRow < this.rows && newCol >= 0 && newCol < this.cols) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of rows of the board.
+     *
+     * @return the number of rows
+     * @pre none
+     * @post none
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the number of columns of the board.
+     *
+     * @return the number of columns
+     * @pre none
+     * @post none
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * Gets the moves the graph was built from.
+     *
+     * @return the move set
+     * @pre none
+     * @post none
+     */
+    public MoveSet getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Gets the number of cells of the board.
+     *
+     * @return rows * cols
+     * @pre none
+     * @post none
+     */
+    public int getCellCount() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+     * Gets the number of moves from a cell.
+     *
+     * @param cell the cell
+     * @pre 0 <= cell < getCellCount()
+     * @post none
+     * @return the number of neighbors of the cell
+     */
+    public int degree(int cell) {
+        return this.offsets[cell + 1] - this.offsets[cell];
+    }
+
+    /**
+     * Gets one neighbor of a cell.
+     *
+     * @param cell the cell
+     * @param index the index of the neighbor
+     * @pre 0 <= cell < getCellCount() && 0 <= index < degree(cell)
+     * @post none
+     * @return the neighboring cell
+     */
+    public int neighbor(int cell, int index) {
+        return this.targets[this.offsets[cell] + index];
+    }
+
+    /**
+     * Checks if the piece can move from one cell to another in one move. Both
+     * cells are on the board, so this only looks the jump up in the move set.
+     *
+     * @param from the cell the piece is on
+     * @param to the cell the piece moves to
+     * @pre 0 <= from, to < getCellCount()
+     * @post none
+     * @return true if the move is a move of the piece, false otherwise
+     */
+    public boolean isMove(int from, int to) {
+        return this.moves.contains(to / this.cols - from / this.cols, to % this.cols - from % this.cols);
+    }
+
+    /**
+     * Gets the offsets array. The neighbors of a cell start at offsets[cell] and
+     * end before offsets[cell + 1]. The array is shared and must not be modified.
+     *
+     * @return the offsets array
+     */
+    int[] offsets() {
+        return this.offsets;
+    }
+
+    /**
+     * Gets the targets array that the offsets index into. The array is shared and
+     * must not be modified.
+     *
+     * @return the targets array
+     */
+    int[] targets() {
+        return this.targets;
+    }
+
+    private record GraphKey(int rows, int cols, MoveSet moves) {
+    }
+}
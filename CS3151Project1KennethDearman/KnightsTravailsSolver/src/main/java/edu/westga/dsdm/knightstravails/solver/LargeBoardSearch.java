@@ -0,0 +1,175 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * The LargeBoardSearch finds shortest knight paths on boards that are too large
+ * to search outright. While the knight is far from the target it makes the move
+ * that goes two squares along the longer distance and one square along the
+ * shorter one, which is always on a shortest path on an open board. Once the
+ * knight is close, a breadth first search over a small window around the
+ * remaining distance finishes the path. Memory use depends on the window, not
+ * on the size of the board.
+ *
+ * @author Kenneth Dearman
+ */
+public class LargeBoardSearch {
+    /**
+     * Boards narrower than this are searched without greedy moves.
+     */
+    static final int MIN_OPEN_DIMENSION = 8;
+    private static final int FAR_DISTANCE = 6;
+    private static final int WINDOW_MARGIN = 4;
+    private static final long MAX_FALLBACK_CELLS = 1 << 22;
+
+    private final BoardGeometry board;
+
+    /**
+     * Instantiates a new large board search on the specified board.
+     *
+     * @param board the board to search
+     * @pre board != null
+     * @post none
+     */
+    public LargeBoardSearch(BoardGeometry board) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        this.board = board;
+    }
+
+    /**
+     * Finds a shortest path between the two positions.
+     *
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @pre board.contains(startPos) && board.contains(endPos)
+     * @post none
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        long cols = this.board.cols();
+        // every greedy move lowers the open board distance by one, so this is enough room
+        long[] greedy = new long[KnightDistance.onOpenBoard(endPos.row() - startPos.row(), endPos.col() - startPos.col()) + 1];
+        int count = 0;
+        int row = startPos.row();
+        int col = startPos.col();
+        greedy[count++] = row * cols + col;
+        boolean open = Math.min(this.board.rows(), this.board.cols()) >= MIN_OPEN_DIMENSION;
+
+        while (open && Math.max(Math.abs(endPos.row() - row), Math.abs(endPos.col() - col)) > FAR_DISTANCE) {
+            int rowDifference = endPos.row() - row;
+            int colDifference = endPos.col() - col;
+            if (Math.abs(rowDifference) >= Math.abs(colDifference)) {
+                row += 2 * Integer.signum(rowDifference);
+                col += this.sideStep(colDifference, col, this.board.cols());
+            } else {
+                col += 2 * Integer.signum(colDifference);
+                row += this.sideStep(rowDifference, row, this.board.rows());
+            }
+            greedy[count++] = row * cols + col;
+        }
+
+        int top = Math.max(0, Math.min(row, endPos.row()) - WINDOW_MARGIN);
+        int left = Math.max(0, Math.min(col, endPos.col()) - WINDOW_MARGIN);
+        int bottom = Math.min(this.board.rows() - 1, Math.max(row, endPos.row()) + WINDOW_MARGIN);
+        int right = Math.min(this.board.cols() - 1, Math.max(col, endPos.col()) + WINDOW_MARGIN);
+        long[] rest = this.searchWindow(Position.of(row, col), endPos, top, left, bottom, right);
+        if (rest == null && this.board.cellCount() <= MAX_FALLBACK_CELLS) {
+            rest = this.searchWindow(Position.of(row, col), endPos, 0, 0, this.board.rows() - 1, this.board.cols() - 1);
+        }
+        if (rest == null) {
+            return null;
+        }
+        long[] cells = Arrays.copyOf(greedy, count + rest.length - 1);
+        System.arraycopy(rest, 1, cells, count, rest.length - 1);
+        return new SolutionPath(this.board.cols(), cells);
+    }
+
+    /**
+     * Gets the one square step along the shorter distance.
+     * @param difference the remaining distance along that direction
+     * @param current the current index along that direction
+     * @param size the size of the board along that direction
+     * @return -1 or 1
+     */
+    private int sideStep(int difference, int current, int size) {
+        if (difference != 0) {
+            return Integer.signum(difference);
+        }
+        return current + 1 < size ? 1 : -1;
+    }
+
+    /**
+     * Runs a breadth first search that only visits cells inside the window.
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @param top the first row of the window
+     * @param left the first column of the window
+     * @param bottom the last row of the window
+     * @param right the last column of the window
+     * @return the cells of the solution path inside the window, or null if there is none
+     */
+    private long[] searchWindow(Position startPos, Position endPos, int top, int left, int bottom, int right) {
+        int width = right - left + 1;
+        int cellCount = (bottom - top + 1) * width;
+        int[] previous = new int[cellCount];
+        int[] queue = new int[cellCount];
+        Arrays.fill(previous, -1);
+        int start = (startPos.row() - top) * width + startPos.col() - left;
+        int end = (endPos.row() - top) * width + endPos.col() - left;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        previous[start] = start;
+
+        while (head < tail) {
+            int original = queue[head++];
+            if (original == end) {
+                return this.getPath(previous, end, top, left, width);
+            }
+            int row = original / width + top;
+            int col = original % width + left;
+
+            for (int[] move : SolvePuzzle.POSSIBLE_MOVES) {
+                int newRow = row + move[0];
+                int newCol = col + move[1];
+
+                if (newRow >= top && newRow <= bottom && newCol >= left && newCol <= right) {
+                    int neighbor = (newRow - top) * width + newCol - left;
+                    if (previous[neighbor] == -1) {
+                        previous[neighbor] = original;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the path inside the window from the predecessor array.
+     * @param previous the predecessor of every reached window cell
+     * @param end the target window cell
+     * @param top the first row of the window
+     * @param left the first column of the window
+     * @param width the width of the window
+     * @return the board cells of the path from start to finish
+     */
+    private long[] getPath(int[] previous, int end, int top, int left, int width) {
+        int length = 0;
+        for (int current = end; previous[current] != current; current = previous[current]) {
+            length++;
+        }
+        long[] cells = new long[length + 1];
+        int current = end;
+        for (int index = length; index >= 0; index--) {
+            cells[index] = (long) (current / width + top) * this.board.cols() + current % width + left;
+            current = previous[current];
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,150 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram counts recorded values in log-linear buckets, the way an
+ * HDR histogram does. Values below 64 get a bucket each. Above that, every power
+ * of two is split into 32 equal buckets, so any value is reported within about
+ * 3% of its true size, from nanoseconds up to Long.MAX_VALUE, with a fixed
+ * 1888 counters. Recording is lock-free and may be done from any thread.
+ *
+ * @author Kenneth Dearman
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_VALUES = 2 * SUB_BUCKETS;
+    private static final int BUCKET_COUNT = EXACT_VALUES + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final LongAdder total;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    /**
+     * Instantiates a new empty histogram.
+     *
+     * @pre none
+     * @post getCount() == 0
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.total = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Records one value. Negative values are recorded as 0.
+     *
+     * @param value the value
+     * @pre none
+     * @post getCount() is one larger
+     */
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        this.counts.incrementAndGet(bucketOf(clamped));
+        this.total.increment();
+        this.sum.add(clamped);
+        this.max.accumulate(clamped);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < EXACT_VALUES) {
+            return bucket;
+        }
+        int shift = (bucket - EXACT_VALUES) / SUB_BUCKETS + 1;
+        long subBucket = SUB_BUCKETS + (bucket - EXACT_VALUES) % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @pre none
+     * @post none
+     * @return the number of values
+     */
+    public long getCount() {
+        return this.total.sum();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @pre none
+     * @post none
+     * @return the largest value, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @pre none
+     * @post none
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long count = this.total.sum();
+        return count == 0 ? 0 : (double) this.sum.sum() / count;
+    }
+
+    /**
+     * Gets the value at a percentile: at least that percentage of the recorded
+     * values are at or below it, within the precision of the buckets.
+     *
+     * @param percentile the percentile
+     * @pre 0 <= percentile <= 100
+     * @post none
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long count = this.total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+    /**
+     * Removes every recorded value. Values recorded while the histogram is
+     * being reset may or may not be kept.
+     *
+     * @pre none
+     * @post getCount() == 0 when no value is recorded concurrently
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            this.counts.set(bucket, 0);
+        }
+        this.total.reset();
+        this.sum.reset();
+        this.max.reset();
+    }
+}
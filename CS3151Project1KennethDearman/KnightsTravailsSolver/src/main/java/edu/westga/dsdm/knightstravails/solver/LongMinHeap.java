@@ -0,0 +1,64 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of primitive longs. Callers pack their priority into the
+ * high bits and their payload into the low bits of each entry.
+ *
+ * @author Kenneth Dearman
+ */
+final class LongMinHeap {
+    private long[] entries;
+    private int size;
+
+    LongMinHeap() {
+        this.entries = new long[64];
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    void clear() {
+        this.size = 0;
+    }
+
+    void push(long entry) {
+        if (this.size == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries, this.entries.length * 2);
+        }
+        int index = this.size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (this.entries[parent] <= entry) {
+                break;
+            }
+            this.entries[index] = this.entries[parent];
+            index = parent;
+        }
+        this.entries[index] = entry;
+    }
+
+    long pop() {
+        long top = this.entries[0];
+        long last = this.entries[--this.size];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= this.size) {
+                break;
+            }
+            if (child + 1 < this.size && this.entries[child + 1] < this.entries[child]) {
+                child++;
+            }
+            if (this.entries[child] >= last) {
+                break;
+            }
+            this.entries[index] = this.entries[child];
+            index = child;
+        }
+        this.entries[index] = last;
+        return top;
+    }
+}
@@ -0,0 +1,355 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BlockedSquares;
+import edu.westga.dsdm.knightstravails.model.BlockedSquaresListener;
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ObstacleAwareSolver finds shortest paths that never land on a blocked
+ * square. It keeps the shortest path tree of the most recently used starting
+ * squares. When a square is blocked or freed the cached trees are repaired in
+ * place: blocking a square only recomputes the part of each tree below that
+ * square, and freeing a square only spreads the distances it shortens.
+ * Instances are not safe to share between threads.
+ *
+ * <p>The solver listens to its blocked squares until it is closed. Close a
+ * solver that is no longer used, or the blocked squares keep it and its trees
+ * alive and keep repairing them.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public class ObstacleAwareSolver implements Solver, AutoCloseable {
+    /**
+     * The number of shortest path trees kept when no capacity is given.
+     */
+    public static final int DEFAULT_CACHED_TREES = 8;
+
+    private final BlockedSquares obstacles;
+    private final BoardGeometry board;
+    private final int cols;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] blocked;
+    private final Map<Integer, ShortestPathTree> trees;
+    private final int[] scratch;
+    private final LongMinHeap heap;
+    private final BlockedSquaresListener listener;
+    private boolean closed;
+
+    /**
+     * Instantiates a new solver that avoids the specified blocked squares and
+     * keeps DEFAULT_CACHED_TREES shortest path trees.
+     *
+     * @param obstacles the blocked squares of the board
+     * @pre obstacles != null && obstacles.getBoard().cellCount() <= IntBreadthFirstSearch.MAX_CELLS
+     * @post none
+     */
+    public ObstacleAwareSolver(BlockedSquares obstacles) {
+        this(obstacles, DEFAULT_CACHED_TREES);
+    }
+
+    /**
+     * Instantiates a new solver that avoids the specified blocked squares and
+     * keeps the specified number of shortest path trees.
+     *
+     * @param obstacles the blocked squares of the board
+     * @param cachedTrees the number of starting squares whose trees are kept
+     * @pre obstacles != null && obstacles.getBoard().cellCount() <= IntBreadthFirstSearch.MAX_CELLS && cachedTrees > 0
+     * @post none
+     */
+    public ObstacleAwareSolver(BlockedSquares obstacles, int cachedTrees) {
+        if (obstacles == null) {
+            throw new IllegalArgumentException("Obstacles cannot be null.");
+        }
+        if (obstacles.getBoard().cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for a breadth first search.");
+        }
+        if (cachedTrees <= 0) {
+            throw new IllegalArgumentException("The number of cached trees must be positive.");
+        }
+        this.obstacles = obstacles;
+        this.board = obstacles.getBoard();
+        this.cols = this.board.cols();
+        KnightMoveGraph graph = KnightMoveGraph.forBoard(this.board);
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        int cellCount = graph.getCellCount();
+        this.blocked = new long[(cellCount + 63) >>> 6];
+        this.scratch = new int[cellCount];
+        this.heap = new LongMinHeap();
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+                return this.size() > cachedTrees;
+            }
+        };
+        for (Position position : obstacles.getBlockedSquares()) {
+            int cell = this.board.indexOf(position);
+            this.blocked[cell >>> 6] |= 1L << cell;
+        }
+        this.listener = this::squareChanged;
+        obstacles.addListener(this.listener);
+    }
+
+    /**
+     * Stops following the blocked squares and drops the cached trees.
+     *
+     * @pre none
+     * @post the solver no longer listens to getObstacles() and must not be queried
+     */
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            this.obstacles.removeListener(this.listener);
+            this.trees.clear();
+        }
+    }
+
+    @Override
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the blocked squares this solver avoids.
+     *
+     * @pre none
+     * @post none
+     * @return the blocked squares
+     */
+    public BlockedSquares getObstacles() {
+        return this.obstacles;
+    }
+
+    @Override
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        int start = this.board.indexOf(startPos);
+        int end = this.board.indexOf(endPos);
+        if (this.isBlocked(start) || this.isBlocked(end)) {
+            return null;
+        }
+        ShortestPathTree tree = this.treeFor(start);
+        if (tree.distance[end] == -1) {
+            return null;
+        }
+        return SolutionPath.fromPredecessors(this.cols, tree.parent, start, end);
+    }
+
+    @Override
+    public int distance(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        int start = this.board.indexOf(startPos);
+        int end = this.board.indexOf(endPos);
+        if (this.isBlocked(start) || this.isBlocked(end)) {
+            return -1;
+        }
+        return this.treeFor(start).distance[end];
+    }
+
+    private void checkPositions(Position startPos, Position endPos) {
+        if (this.closed) {
+            throw new IllegalStateException("The solver has been closed.");
+        }
+        if (startPos == null || endPos == null) {
+            throw new IllegalArgumentException("Either start or end position cannot be null.");
+        }
+        if (!this.board.contains(startPos) || !this.board.contains(endPos)) {
+            throw new IllegalArgumentException("Either start or end position is not on the board.");
+        }
+    }
+
+    private boolean isBlocked(int cell) {
+        return (this.blocked[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Gets the cached tree for the start cell, building it with a breadth first
+     * search if it is not cached.
+     *
+     * @param start the start cell
+     * @return the shortest path tree rooted at start
+     */
+    private ShortestPathTree treeFor(int start) {
+        ShortestPathTree tree = this.trees.get(start);
+        if (tree != null) {
+            return tree;
+        }
+        tree = new ShortestPathTree(this.scratch.length);
+        tree.distance[start] = 0;
+        tree.parent[start] = start;
+        this.spread(tree, start);
+        this.trees.put(start, tree);
+        return tree;
+    }
+
+    /**
+     * Spreads distances outward from a cell whose distance is already set,
+     * lowering every free cell that can now be reached in fewer moves.
+     *
+     * @param tree the tree to update
+     * @param origin the cell to spread from
+     */
+    private void spread(ShortestPathTree tree, int origin) {
+        int head = 0;
+        int tail = 0;
+        this.scratch[tail++] = origin;
+
+        while (head < tail) {
+            int original = this.scratch[head++];
+            int nextDistance = tree.distance[original] + 1;
+
+            for (int edge = this.offsets[original]; edge < this.offsets[original + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (!this.isBlocked(neighbor) && (tree.distance[neighbor] == -1 || nextDistance < tree.distance[neighbor])) {
+                    tree.distance[neighbor] = nextDistance;
+                    tree.parent[neighbor] = original;
+                    this.scratch[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    private void squareChanged(Position position, boolean nowBlocked) {
+        int cell = this.board.indexOf(position);
+        if (nowBlocked) {
+            this.blocked[cell >>> 6] |= 1L << cell;
+            this.trees.remove(cell);
+            for (ShortestPathTree tree : this.trees.values()) {
+                this.repairBlocked(tree, cell);
+            }
+        } else {
+            this.blocked[cell >>> 6] &= ~(1L << cell);
+            for (ShortestPathTree tree : this.trees.values()) {
+                this.repairFreed(tree, cell);
+            }
+        }
+    }
+
+    /**
+     * Repairs a tree after a square in it was blocked. Only the cells whose tree
+     * path went through the square lose their distance. Each of them is then
+     * given back the shortest distance through the rest of the tree, in order of
+     * distance, the way Dijkstra's algorithm would.
+     *
+     * @param tree the tree to repair
+     * @param cell the blocked cell
+     */
+    private void repairBlocked(ShortestPathTree tree, int cell) {
+        if (tree.distance[cell] == -1) {
+            return;
+        }
+        int count = this.collectSubtree(tree, cell);
+        for (int i = 0; i < count; i++) {
+            tree.distance[this.scratch[i]] = -1;
+        }
+        this.heap.clear();
+        for (int i = 1; i < count; i++) {
+            int affected = this.scratch[i];
+            int parent = this.closestNeighbor(tree, affected);
+            if (parent != -1) {
+                this.heap.push(((long) (tree.distance[parent] + 1) << 32) | affected);
+            }
+        }
+
+        while (!this.heap.isEmpty()) {
+            long entry = this.heap.pop();
+            int affected = (int) entry;
+            if (tree.distance[affected] != -1) {
+                continue;
+            }
+            int parent = this.closestNeighbor(tree, affected);
+            tree.distance[affected] = (int) (entry >>> 32);
+            tree.parent[affected] = parent;
+
+            for (int edge = this.offsets[affected]; edge < this.offsets[affected + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (!this.isBlocked(neighbor) && tree.distance[neighbor] == -1) {
+                    this.heap.push(((long) (tree.distance[affected] + 1) << 32) | neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the cell and every cell whose tree path goes through it into the
+     * scratch array.
+     *
+     * @param tree the tree
+     * @param root the root of the subtree
+     * @return the number of cells in the subtree
+     */
+    private int collectSubtree(ShortestPathTree tree, int root) {
+        int count = 0;
+        this.scratch[count++] = root;
+
+        for (int i = 0; i < count; i++) {
+            int original = this.scratch[i];
+
+            for (int edge = this.offsets[original]; edge < this.offsets[original + 1]; edge++) {
+                int neighbor = this.targets[edge];
+                if (tree.distance[neighbor] != -1 && tree.parent[neighbor] == original && neighbor != original) {
+                    this.scratch[count++] = neighbor;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the free neighbor of a cell with the smallest distance in the tree.
+     *
+     * @param tree the tree
+     * @param cell the cell
+     * @return the closest neighbor, or -1 if no neighbor is in the tree
+     */
+    private int closestNeighbor(ShortestPathTree tree, int cell) {
+        int closest = -1;
+
+        for (int edge = this.offsets[cell]; edge < this.offsets[cell + 1]; edge++) {
+            int neighbor = this.targets[edge];
+            if (!this.isBlocked(neighbor) && tree.distance[neighbor] != -1
+                    && (closest == -1 || tree.distance[neighbor] < tree.distance[closest])) {
+                closest = neighbor;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Repairs a tree after a square was freed. The square joins the tree next to
+     * its closest neighbor, and the distances it shortens are spread outward.
+     *
+     * @param tree the tree to repair
+     * @param cell the freed cell
+     */
+    private void repairFreed(ShortestPathTree tree, int cell) {
+        int parent = this.closestNeighbor(tree, cell);
+        if (parent == -1) {
+            return;
+        }
+        tree.distance[cell] = tree.distance[parent] + 1;
+        tree.parent[cell] = parent;
+        this.spread(tree, cell);
+    }
+
+    /**
+     * The distances and parents of a breadth first search from one starting square.
+     */
+    private static final class ShortestPathTree {
+        private final int[] distance;
+        private final int[] parent;
+
+        private ShortestPathTree(int cellCount) {
+            this.distance = new int[cellCount];
+            this.parent = new int[cellCount];
+            Arrays.fill(this.distance, -1);
+        }
+    }
+}
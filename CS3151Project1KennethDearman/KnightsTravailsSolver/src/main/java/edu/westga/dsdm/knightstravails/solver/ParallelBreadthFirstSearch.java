@@ -0,0 +1,376 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * The ParallelBreadthFirstSearch spreads a single breadth first search over
+ * the threads of a fork-join pool. The search runs one level at a time and
+ * the work of each level is split into tasks that run in parallel.
+ *
+ * <p>While the frontier is small a level is expanded top-down: the frontier
+ * cells are split into runs, and every frontier cell claims its unvisited
+ * neighbors with an atomic OR on the visited bitset. Whoever sets a bit first
+ * records the predecessor. Once the frontier holds a large share of the
+ * unvisited cells, a level is expanded bottom-up instead: the frontier is
+ * marked in a bitset, the board is split into blocks of bitset words, and every
+ * unvisited cell looks for a neighbor in the frontier and stops at the first
+ * one. A block owns its words, so bottom-up levels need no atomic claims. The
+ * search switches back to top-down when the frontier shrinks again, and stops
+ * after the level that reaches the target. Levels too small to be worth
+ * splitting run on the calling thread.</p>
+ *
+ * <p>The state of a search is allocated once per instance and cleared after
+ * every query, and each task collects the cells it reaches in a buffer taken
+ * from a shared pool of buffers sized for one task, so repeated queries do
+ * not allocate board-sized arrays. One instance may be shared by any number of
+ * threads, but its queries run one at a time; each query already spreads over
+ * the whole pool. The returned path is always a shortest path. When there are
+ * several, which one is returned may differ between runs.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public class ParallelBreadthFirstSearch {
+    private static final int CELLS_PER_TASK = 2048;
+    private static final int WORDS_PER_TASK = 64;
+    private static final int BOTTOM_UP_FACTOR = 14;
+    private static final int TOP_DOWN_FACTOR = 24;
+
+    private final int cols;
+    private final int cellCount;
+    private final int wordCount;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int maxDegree;
+    private final ForkJoinPool pool;
+    private final Search search;
+
+    /**
+     * Instantiates a new parallel search for the specified board on the common pool.
+     *
+     * @param board the board to search
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS
+     * @post none
+     */
+    public ParallelBreadthFirstSearch(BoardGeometry board) {
+        this(board, Piece.KNIGHT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new parallel search for the specified board on the specified pool.
+     *
+     * @param board the board to search
+     * @param pool the pool the levels are expanded on
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS && pool != null
+     * @post none
+     */
+    public ParallelBreadthFirstSearch(BoardGeometry board, ForkJoinPool pool) {
+        this(board, Piece.KNIGHT, pool);
+    }
+
+    /**
+     * Instantiates a new parallel search for the moves of a piece on the
+     * specified board on the specified pool.
+     *
+     * @param board the board to search
+     * @param piece the piece that moves
+     * @param pool the pool the levels are expanded on
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS && piece != null && pool != null
+     * @post none
+     */
+    public ParallelBreadthFirstSearch(BoardGeometry board, Piece piece, ForkJoinPool pool) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for a breadth first search.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.cols = board.cols();
+        KnightMoveGraph graph = KnightMoveGraph.forPiece(board, piece);
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.maxDegree = graph.getMoves().size();
+        this.cellCount = graph.getCellCount();
+        this.wordCount = (this.cellCount + 63) >>> 6;
+        this.pool = pool;
+        this.search = new Search();
+    }
+
+    /**
+     * Finds a shortest path between the two positions.
+     *
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @pre startPos and endPos are on the board
+     * @post none
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        int start = startPos.row() * this.cols + startPos.col();
+        int end = endPos.row() * this.cols + endPos.col();
+        synchronized (this.search) {
+            try {
+                int length = this.search.run(start, end);
+                if (length == -1) {
+                    return null;
+                }
+                long[] cells = new long[length + 1];
+                int current = end;
+                for (int index = length; index >= 0; index--) {
+                    cells[index] = current;
+                    current = this.search.parents[current] - 1;
+                }
+                return new SolutionPath(this.cols, cells);
+            } finally {
+                this.search.clear();
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks of one level, in parallel if there is more than one.
+     *
+     * @param tasks the number of tasks
+     * @param task runs one task and returns the number of cells it reached
+     */
+    private void runLevel(int tasks, IntUnaryOperator task) {
+        if (tasks == 1) {
+            task.applyAsInt(0);
+        } else {
+            this.pool.submit(() -> IntStream.range(0, tasks).parallel().map(task).sum()).join();
+        }
+    }
+
+    /**
+     * The reusable state of the search. A parent entry holds the predecessor
+     * plus one, so zero marks a cell as unvisited. The visited bitset holds
+     * every reached cell and the frontier is kept as a list of cells. Within a
+     * level only claims on the visited bitset, marks on the frontier bitset,
+     * room taken in the next frontier list and the buffer pool need atomic
+     * updates. Everything else has one writer per level, and the join at the
+     * end of each level publishes it to the next.
+     */
+    private final class Search {
+        private final int[] parents;
+        private final AtomicLongArray visited;
+        private final AtomicLongArray frontierBits;
+        private final AtomicInteger nextSize;
+        private final Queue<int[]> buffers;
+        private final int bufferSize;
+        private int[] frontier;
+        private int[] next;
+        private int frontierSize;
+
+        private Search() {
+            ParallelBreadthFirstSearch search = ParallelBreadthFirstSearch.this;
+            this.parents = new int[search.cellCount];
+            this.visited = new AtomicLongArray(search.wordCount);
+            this.frontierBits = new AtomicLongArray(search.wordCount);
+            this.nextSize = new AtomicInteger();
+            this.buffers = new ConcurrentLinkedQueue<>();
+            this.bufferSize = Math.min(Math.max(CELLS_PER_TASK * search.maxDegree, WORDS_PER_TASK << 6),
+                    Math.max(search.cellCount * search.maxDegree, search.wordCount << 6));
+            this.frontier = new int[search.cellCount];
+            this.next = new int[search.cellCount];
+        }
+
+        /**
+         * Expands levels from the start cell until the end cell is reached or
+         * the frontier is empty.
+         *
+         * @param start the start cell
+         * @param end the end cell
+         * @return the distance to the end cell, or -1 if it cannot be reached
+         */
+        private int run(int start, int end) {
+            ParallelBreadthFirstSearch search = ParallelBreadthFirstSearch.this;
+            this.parents[start] = start + 1;
+            this.visited.setPlain(start >>> 6, 1L << start);
+            this.frontier[0] = start;
+            this.frontierSize = 1;
+            int level = 0;
+            long unvisited = search.cellCount - 1;
+            boolean bottomUp = false;
+
+            while (this.parents[end] == 0) {
+                if (this.frontierSize == 0) {
+                    return -1;
+                }
+                if (!bottomUp && (long) this.frontierSize * BOTTOM_UP_FACTOR > unvisited) {
+                    bottomUp = true;
+                } else if (bottomUp && (long) this.frontierSize * TOP_DOWN_FACTOR < search.cellCount) {
+                    bottomUp = false;
+                }
+                this.nextSize.set(0);
+                int frontierTasks = (this.frontierSize + CELLS_PER_TASK - 1) / CELLS_PER_TASK;
+                if (bottomUp) {
+                    int wordTasks = (search.wordCount + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+                    search.runLevel(frontierTasks, task -> this.markFrontier(task, true));
+                    search.runLevel(wordTasks, this::bottomUp);
+                    search.runLevel(frontierTasks, task -> this.markFrontier(task, false));
+                } else {
+                    search.runLevel(frontierTasks, this::topDown);
+                }
+                int[] expanded = this.frontier;
+                this.frontier = this.next;
+                this.next = expanded;
+                this.frontierSize = this.nextSize.get();
+                unvisited -= this.frontierSize;
+                level++;
+            }
+            return level;
+        }
+
+        /**
+         * Clears the parents of the visited cells and both bitsets, so the next
+         * query starts from an empty search. This costs a pass over the words
+         * of the bitsets plus one store per visited cell.
+         */
+        private void clear() {
+            for (int word = 0; word < ParallelBreadthFirstSearch.this.wordCount; word++) {
+                long seen = this.visited.getPlain(word);
+                while (seen != 0) {
+                    this.parents[(word << 6) + Long.numberOfTrailingZeros(seen)] = 0;
+                    seen &= seen - 1;
+                }
+                this.visited.setPlain(word, 0);
+                this.frontierBits.setPlain(word, 0);
+            }
+            this.frontierSize = 0;
+        }
+
+        /**
+         * Takes a buffer for the cells one task reaches. A buffer is only made
+         * when every existing one is in use, so there are never more than the
+         * tasks that ever ran at the same time.
+         *
+         * @return a buffer only the calling task uses until it is given back
+         */
+        private int[] takeBuffer() {
+            int[] buffer = this.buffers.poll();
+            return buffer != null ? buffer : new int[this.bufferSize];
+        }
+
+        /**
+         * Marks one run of frontier cells in the frontier bitset, or clears the
+         * words holding them once the level is done.
+         *
+         * @param task the run of frontier cells
+         * @param mark true to mark the cells, false to clear their words
+         * @return the number of cells marked
+         */
+        private int markFrontier(int task, boolean mark) {
+            int first = task * CELLS_PER_TASK;
+            int last = Math.min(first + CELLS_PER_TASK, this.frontierSize);
+            for (int index = first; index < last; index++) {
+                int cell = this.frontier[index];
+                if (mark) {
+                    this.frontierBits.getAndAccumulate(cell >>> 6, 1L << cell, (value, bit) -> value | bit);
+                } else {
+                    this.frontierBits.setPlain(cell >>> 6, 0);
+                }
+            }
+            return last - first;
+        }
+
+        /**
+         * Expands one run of frontier cells, claiming their unvisited neighbors.
+         *
+         * @param task the run of frontier cells
+         * @return the number of cells claimed
+         */
+        private int topDown(int task) {
+            int[] offsets = ParallelBreadthFirstSearch.this.offsets;
+            int[] targets = ParallelBreadthFirstSearch.this.targets;
+            int first = task * CELLS_PER_TASK;
+            int last = Math.min(first + CELLS_PER_TASK, this.frontierSize);
+            int[] claimed = this.takeBuffer();
+            int count = 0;
+            for (int index = first; index < last; index++) {
+                int original = this.frontier[index];
+                for (int edge = offsets[original]; edge < offsets[original + 1]; edge++) {
+                    int neighbor = targets[edge];
+                    long bit = 1L << neighbor;
+                    if ((this.visited.getPlain(neighbor >>> 6) & bit) != 0) {
+                        continue;
+                    }
+                    long seen = this.visited.getAndAccumulate(neighbor >>> 6, bit, (value, mask) -> value | mask);
+                    if ((seen & bit) == 0) {
+                        this.parents[neighbor] = original + 1;
+                        claimed[count++] = neighbor;
+                    }
+                }
+            }
+            this.publish(claimed, count);
+            return count;
+        }
+
+        /**
+         * Looks for a frontier neighbor of every unvisited cell of one block of
+         * words. The block is the only writer of its words and cells.
+         *
+         * @param task the block of words
+         * @return the number of cells reached
+         */
+        private int bottomUp(int task) {
+            int[] offsets = ParallelBreadthFirstSearch.this.offsets;
+            int[] targets = ParallelBreadthFirstSearch.this.targets;
+            int cellCount = ParallelBreadthFirstSearch.this.cellCount;
+            int firstWord = task * WORDS_PER_TASK;
+            int lastWord = Math.min(firstWord + WORDS_PER_TASK, ParallelBreadthFirstSearch.this.wordCount);
+            int[] reachedCells = this.takeBuffer();
+            int count = 0;
+            for (int word = firstWord; word < lastWord; word++) {
+                long seen = this.visited.getPlain(word);
+                long unvisited = ~seen;
+                long reached = 0;
+                while (unvisited != 0) {
+                    int cell = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+                    if (cell >= cellCount) {
+                        break;
+                    }
+                    unvisited &= unvisited - 1;
+                    for (int edge = offsets[cell]; edge < offsets[cell + 1]; edge++) {
+                        int neighbor = targets[edge];
+                        if ((this.frontierBits.getPlain(neighbor >>> 6) & (1L << neighbor)) != 0) {
+                            this.parents[cell] = neighbor + 1;
+                            reached |= 1L << cell;
+                            reachedCells[count++] = cell;
+                            break;
+                        }
+                    }
+                }
+                this.visited.setPlain(word, seen | reached);
+            }
+            this.publish(reachedCells, count);
+            return count;
+        }
+
+        /**
+         * Appends the cells one task reached to the next frontier and gives
+         * the buffer of the task back.
+         *
+         * @param cells the buffer holding the reached cells
+         * @param count the number of reached cells
+         */
+        private void publish(int[] cells, int count) {
+            if (count > 0) {
+                int at = this.nextSize.getAndAdd(count);
+                System.arraycopy(cells, 0, this.next, at, count);
+            }
+            this.buffers.offer(cells);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.Position;
+
+/**
+ * PositionPair stores one query of a batch: a starting position and a target
+ * position.
+ *
+ * @param start the starting position
+ * @param target the target position
+ * @author Kenneth Dearman
+ */
+public record PositionPair(Position start, Position target) {
+    /**
+     * Instantiates a new pair of positions.
+     *
+     * @param start the starting position
+     * @param target the target position
+     * @pre start != null && target != null
+     * @post start() == start && target() == target
+     */
+    public PositionPair {
+        if (start == null || target == null) {
+            throw new IllegalArgumentException("Either start or target position cannot be null.");
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The PuzzleGenerator draws random puzzles, pairs of a start and a target
+ * square, whose number of moves follows a requested distribution.
+ *
+ * <p>When the generator is made every (start, target) pair of the board is put
+ * in the bucket of its number of moves. The distances come from one breadth
+ * first search per start square, run in parallel, and the buckets are filled
+ * with a counting sort, so the buckets hold the pairs in the same order on
+ * every run. Pairs that cannot reach each other are left out.</p>
+ *
+ * <p>The distribution gives a weight to every number of moves. A puzzle is
+ * drawn in constant time: an alias table picks the number of moves with one
+ * random index and one random double, and then a pair is picked uniformly from
+ * its bucket. The random numbers come from a SplittableRandom. A batch is
+ * split into chunks, and each chunk gets its own generator split off the seed
+ * in chunk order before the chunks run in parallel, so a seed always gives the
+ * same batch however many threads make it. A puzzle generator is immutable and
+ * may be shared between threads.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public final class PuzzleGenerator {
+    /**
+     * The largest number of cells a generator can be made for. The buckets take
+     * four bytes per pair of cells.
+     */
+    public static final int MAX_CELLS = AllPairsTable.MAX_CELLS;
+
+    private static final int PUZZLES_PER_CHUNK = 4096;
+
+    private final BoardGeometry board;
+    private final ForkJoinPool pool;
+    private final int cellCount;
+    private final int[] pairs;
+    private final int[] bucketStarts;
+    private final int[] columnMoves;
+    private final double[] columnProbabilities;
+    private final int[] aliases;
+    private final long puzzleCount;
+
+    /**
+     * Instantiates a new generator for the knight on the specified board, drawing
+     * every pair at least one move apart with the same probability.
+     *
+     * @param board the board
+     * @pre board != null && board.cellCount() <= MAX_CELLS
+     * @post none
+     */
+    public PuzzleGenerator(BoardGeometry board) {
+        this(board, Piece.KNIGHT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new generator for the specified piece on the specified board,
+     * drawing every pair at least one move apart with the same probability.
+     *
+     * @param board the board
+     * @param piece the piece that moves
+     * @pre board != null && board.cellCount() <= MAX_CELLS && piece != null
+     * @post none
+     */
+    public PuzzleGenerator(BoardGeometry board, Piece piece) {
+        this(board, piece, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new generator for the specified piece on the specified board
+     * that searches and generates on the specified pool, drawing every pair at
+     * least one move apart with the same probability.
+     *
+     * @param board the board
+     * @param piece the piece that moves
+     * @param pool the pool the searches and batches run on
+     * @pre board != null && board.cellCount() <= MAX_CELLS && piece != null && pool != null
+     * @post none
+     */
+    public PuzzleGenerator(BoardGeometry board, Piece piece, ForkJoinPool pool) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (board.cellCount() > MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large to bucket every pair of squares.");
+        }
+        if (piece == null) {
+            throw new IllegalArgumentException("Piece cannot be null.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.board = board;
+        this.pool = pool;
+        this.cellCount = (int) board.cellCount();
+        short[] distances = this.searchAllPairs(piece);
+        int maxMoves = 0;
+        for (short moves : distances) {
+            maxMoves = Math.max(maxMoves, moves);
+        }
+        this.bucketStarts = new int[maxMoves + 2];
+        this.pairs = this.bucket(distances);
+
+        double[] weights = new double[maxMoves + 1];
+        for (int moves = 1; moves <= maxMoves; moves++) {
+            weights[moves] = this.countWithMoves(moves);
+        }
+        this.columnMoves = columnsOf(weights);
+        this.columnProbabilities = new double[this.columnMoves.length];
+        this.aliases = new int[this.columnMoves.length];
+        buildAliasTable(weights, this.columnMoves, this.columnProbabilities, this.aliases);
+        this.puzzleCount = this.countPuzzles(this.columnMoves);
+    }
+
+    private PuzzleGenerator(PuzzleGenerator buckets, double[] weights) {
+        this.board = buckets.board;
+        this.pool = buckets.pool;
+        this.cellCount = buckets.cellCount;
+        this.pairs = buckets.pairs;
+        this.bucketStarts = buckets.bucketStarts;
+        this.columnMoves = columnsOf(weights);
+        this.columnProbabilities = new double[this.columnMoves.length];
+        this.aliases = new int[this.columnMoves.length];
+        buildAliasTable(weights, this.columnMoves, this.columnProbabilities, this.aliases);
+        this.puzzleCount = this.countPuzzles(this.columnMoves);
+    }
+
+    /**
+     * Runs one breadth first search per start square.
+     *
+     * @param piece the piece that moves
+     * @return the moves from start to target at start * cellCount + target, -1 if unreachable
+     */
+    private short[] searchAllPairs(Piece piece) {
+        int cells = this.cellCount;
+        short[] distances = new short[cells * cells];
+        ThreadLocal<BreadthFirstTree> trees = ThreadLocal.withInitial(() -> new BreadthFirstTree(this.board, piece));
+        this.pool.submit(() -> IntStream.range(0, cells).parallel().forEach(start -> {
+            BreadthFirstTree tree = trees.get();
+            tree.grow(start);
+            for (int target = 0; target < cells; target++) {
+                distances[start * cells + target] = (short) tree.distanceTo(target);
+            }
+        })).join();
+        return distances;
+    }
+
+    /**
+     * Sorts the reachable pairs by number of moves with a counting sort, filling
+     * in where each bucket starts.
+     *
+     * @param distances the moves of every pair
+     * @return the reachable pairs as start * cellCount + target, bucket by bucket
+     */
+    private int[] bucket(short[] distances) {
+        for (short moves : distances) {
+            if (moves >= 0) {
+                this.bucketStarts[moves + 1]++;
+            }
+        }
+        for (int moves = 1; moves < this.bucketStarts.length; moves++) {
+            this.bucketStarts[moves] += this.bucketStarts[moves - 1];
+        }
+        int[] sorted = new int[this.bucketStarts[this.bucketStarts.length - 1]];
+        int[] next = Arrays.copyOf(this.bucketStarts, this.bucketStarts.length - 1);
+        for (int pair = 0; pair < distances.length; pair++) {
+            if (distances[pair] >= 0) {
+                sorted[next[distances[pair]]++] = pair;
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Gets the numbers of moves with a positive weight, which become the columns
+     * of the alias table.
+     *
+     * @param weights the weight of every number of moves
+     * @return the numbers of moves with a positive weight, in increasing order
+     */
+    private static int[] columnsOf(double[] weights) {
+        return IntStream.range(0, weights.length).filter(moves -> weights[moves] > 0).toArray();
+    }
+
+    /**
+     * Builds the alias table of the weights with Vose's method. Column i is
+     * drawn with probability 1 / columns; it then stands for its own number of
+     * moves with probability probabilities[i] and for the column aliases[i]
+     * otherwise.
+     *
+     * @param weights the weight of every number of moves
+     * @param columns the numbers of moves with a positive weight
+     * @param probabilities where the probability of keeping each column is stored
+     * @param aliases where the alias of each column is stored
+     */
+    private static void buildAliasTable(double[] weights, int[] columns, double[] probabilities, int[] aliases) {
+        int count = columns.length;
+        double total = 0;
+        for (int moves : columns) {
+            total += weights[moves];
+        }
+        double[] scaled = new double[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int column = 0; column < count; column++) {
+            scaled[column] = weights[columns[column]] * count / total;
+            if (scaled[column] < 1) {
+                small[smallCount++] = column;
+            } else {
+                large[largeCount++] = column;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] += scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1;
+        }
+    }
+
+    private long countPuzzles(int[] columns) {
+        long count = 0;
+        for (int moves : columns) {
+            count += this.countWithMoves(moves);
+        }
+        return count;
+    }
+
+    /**
+     * Gets a generator for the same board that draws the number of moves of a
+     * puzzle from the specified weights. weights[m] is the relative weight of
+     * puzzles that need m moves; every pair with that number of moves is equally
+     * likely. The buckets are shared with this generator.
+     *
+     * @param weights the weight of every number of moves, starting at 0 moves
+     * @pre weights != null && every weight is finite and not negative && some weight is positive
+     *      && every number of moves with a positive weight has at least one pair
+     * @post none
+     * @return the generator
+     */
+    public PuzzleGenerator withDistribution(double... weights) {
+        if (weights == null) {
+            throw new IllegalArgumentException("Weights cannot be null.");
+        }
+        boolean positive = false;
+        for (int moves = 0; moves < weights.length; moves++) {
+            if (!Double.isFinite(weights[moves]) || weights[moves] < 0) {
+                throw new IllegalArgumentException("weight of " + moves + " moves must be finite and not negative");
+            }
+            if (weights[moves] > 0 && this.countWithMoves(moves) == 0) {
+                throw new IllegalArgumentException("no puzzle on this board needs " + moves + " moves");
+            }
+            positive |= weights[moves] > 0;
+        }
+        if (!positive) {
+            throw new IllegalArgumentException("at least one weight must be positive");
+        }
+        return new PuzzleGenerator(this, weights.clone());
+    }
+
+    /**
+     * Gets the board the puzzles are drawn on.
+     *
+     * @pre none
+     * @post none
+     * @return the board geometry
+     */
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the largest number of moves any reachable pair of squares needs.
+     *
+     * @pre none
+     * @post none
+     * @return the largest number of moves
+     */
+    public int getMaxMoves() {
+        return this.bucketStarts.length - 2;
+    }
+
+    /**
+     * Gets the number of (start, target) pairs that need the specified number of moves.
+     *
+     * @param moves the number of moves
+     * @pre none
+     * @post none
+     * @return the number of pairs
+     */
+    public int countWithMoves(int moves) {
+        if (moves < 0 || moves > this.getMaxMoves()) {
+            return 0;
+        }
+        return this.bucketStarts[moves + 1] - this.bucketStarts[moves];
+    }
+
+    /**
+     * Gets the number of different puzzles the distribution can draw.
+     *
+     * @pre none
+     * @post none
+     * @return the number of pairs whose number of moves has a positive weight
+     */
+    public long getPuzzleCount() {
+        return this.puzzleCount;
+    }
+
+    /**
+     * Draws one puzzle.
+     *
+     * @param random the source of random numbers
+     * @pre random != null && getPuzzleCount() > 0
+     * @post none
+     * @return the start and target of the puzzle
+     */
+    public PositionPair next(SplittableRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("Random cannot be null.");
+        }
+        if (this.puzzleCount == 0) {
+            throw new IllegalStateException("no puzzle fits the distribution");
+        }
+        int column = random.nextInt(this.columnMoves.length);
+        if (random.nextDouble() >= this.columnProbabilities[column]) {
+            column = this.aliases[column];
+        }
+        int moves = this.columnMoves[column];
+        int first = this.bucketStarts[moves];
+        int pair = this.pairs[first + random.nextInt(this.bucketStarts[moves + 1] - first)];
+        return new PositionPair(this.board.positionAt(pair / this.cellCount), this.board.positionAt(pair % this.cellCount));
+    }
+
+    /**
+     * Draws a batch of puzzles in parallel. The same seed always gives the same batch.
+     *
+     * @param count the number of puzzles
+     * @param seed the seed of the random numbers
+     * @pre count >= 0 && getPuzzleCount() > 0
+     * @post none
+     * @return the puzzles
+     */
+    public List<PositionPair> generate(int count, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count cannot be negative.");
+        }
+        if (this.puzzleCount == 0) {
+            throw new IllegalStateException("no puzzle fits the distribution");
+        }
+        int chunks = (count + PUZZLES_PER_CHUNK - 1) / PUZZLES_PER_CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            randoms[chunk] = root.split();
+        }
+        PositionPair[] puzzles = new PositionPair[count];
+        this.pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int last = Math.min(count, (chunk + 1) * PUZZLES_PER_CHUNK);
+            for (int index = chunk * PUZZLES_PER_CHUNK; index < last; index++) {
+                puzzles[index] = this.next(randoms[chunk]);
+            }
+        })).join();
+        return Arrays.asList(puzzles);
+    }
+}
@@ -0,0 +1,18 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+/**
+ * QueryStats describe the work done to answer one path query.
+ *
+ * @param mode the search mode that answered the query
+ * @param latencyNanos the time taken by the whole query
+ * @param pathLength the number of moves of the path, or -1 if the target could not be reached
+ * @param nodesExpanded the number of squares taken off a search queue
+ * @param nodesReached the number of squares put on a search queue
+ * @param neighborsSkipped the number of knight moves that led to a square already reached
+ * @param peakFrontier the largest number of squares waiting on a search queue
+ * @param pathNanos the time taken to build the path from the search results
+ * @author Kenneth Dearman
+ */
+public record QueryStats(SearchMode mode, long latencyNanos, int pathLength, long nodesExpanded, long nodesReached,
+        long neighborsSkipped, int peakFrontier, long pathNanos) {
+}
@@ -0,0 +1,18 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+/**
+ * A QueryStatsListener is told about every query a solver answers while its
+ * metrics are on.
+ *
+ * @author Kenneth Dearman
+ */
+public interface QueryStatsListener {
+    /**
+     * Called after a query has been answered, on the thread that asked it.
+     *
+     * @param stats the stats of the query
+     * @pre stats != null
+     * @post none
+     */
+    void queryAnswered(QueryStats stats);
+}
@@ -0,0 +1,47 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.List;
+
+/**
+ * A Route is a walk from a start square through several waypoints. The
+ * stops are the waypoints in the order they are visited, and the path is the
+ * shortest paths between consecutive stops joined into one. A route is optimal
+ * when no walk allowed by the request needs fewer moves: a route in a fixed
+ * order always is, a route in the best order is when the order was solved
+ * exactly.
+ *
+ * @param stops the waypoints in the order they are visited
+ * @param path the squares of the whole walk, start first
+ * @param optimal true if no allowed walk needs fewer moves
+ * @author Kenneth Dearman
+ */
+public record Route(List<Position> stops, SolutionPath path, boolean optimal) {
+    /**
+     * Instantiates a new route.
+     *
+     * @param stops the waypoints in the order they are visited
+     * @param path the squares of the whole walk, start first
+     * @param optimal true if no allowed walk needs fewer moves
+     * @pre stops != null && path != null
+     * @post stops() is an unmodifiable copy of stops && path() == path && optimal() == optimal
+     */
+    public Route {
+        if (stops == null || path == null) {
+            throw new IllegalArgumentException("A route needs its stops and path.");
+        }
+        stops = List.copyOf(stops);
+    }
+
+    /**
+     * Gets the number of moves of the whole walk.
+     *
+     * @pre none
+     * @post none
+     * @return the number of moves
+     */
+    public int moves() {
+        return this.path.length();
+    }
+}
@@ -0,0 +1,427 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The RoutePlanner finds walks from a start square through several waypoints,
+ * either in the order given or in the order that needs the fewest moves.
+ *
+ * <p>The moves between every pair of points come from one breadth first search
+ * per point, run in parallel on a fork-join pool. Moves are reversible, so the
+ * search from the last point is skipped and its distances are read off the
+ * others. With up to EXACT_LIMIT waypoints the best order is solved exactly by
+ * the Held-Karp dynamic program over subsets of waypoints, which takes
+ * 2^n * n^2 steps. With more waypoints the order is built by always going to
+ * the nearest unvisited waypoint and then improved by reversing stretches of it
+ * (2-opt) for at most IMPROVEMENT_PASSES passes, so the time stays bounded but
+ * the route may not be the shortest.</p>
+ *
+ * <p>Once the order is known the legs are joined into one path. With up to
+ * EXACT_LIMIT waypoints the distance pass also walks each of its trees back
+ * from every other point and keeps those shortest paths, so the legs of the
+ * best order are read from them without another search; a leg from the last
+ * point is its path from the tree of the leg's end, walked forwards. Otherwise
+ * a leg is read from the search tree of its end square, walking from its start
+ * towards the root, so every leg takes one more breadth first search. Only the
+ * paths between points are kept, not the trees, which would take
+ * points * board.cellCount() cells. A route planner may be shared between
+ * threads.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public class RoutePlanner {
+    /**
+     * The largest number of waypoints whose best order is solved exactly.
+     */
+    public static final int EXACT_LIMIT = 15;
+
+    /**
+     * The largest number of waypoints of one route.
+     */
+    public static final int MAX_WAYPOINTS = 2048;
+
+    /**
+     * The largest number of improvement passes over a route of more than EXACT_LIMIT waypoints.
+     */
+    public static final int IMPROVEMENT_PASSES = 8;
+
+    private static final int UNREACHABLE = -1;
+
+    private final BoardGeometry board;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<BreadthFirstTree> trees;
+
+    /**
+     * Instantiates a new route planner for the knight on the specified board.
+     *
+     * @param board the board to plan on
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS
+     * @post none
+     */
+    public RoutePlanner(BoardGeometry board) {
+        this(board, Piece.KNIGHT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new route planner for the specified piece on the specified board.
+     *
+     * @param board the board to plan on
+     * @param piece the piece that moves
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS && piece != null
+     * @post none
+     */
+    public RoutePlanner(BoardGeometry board, Piece piece) {
+        this(board, piece, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new route planner for the specified piece on the specified
+     * board that searches on the specified pool.
+     *
+     * @param board the board to plan on
+     * @param piece the piece that moves
+     * @param pool the pool the searches run on
+     * @pre board != null && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS && piece != null && pool != null
+     * @post none
+     */
+    public RoutePlanner(BoardGeometry board, Piece piece, ForkJoinPool pool) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            throw new IllegalArgumentException("board is too large for a breadth first search.");
+        }
+        if (piece == null) {
+            throw new IllegalArgumentException("Piece cannot be null.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.board = board;
+        this.pool = pool;
+        this.trees = ThreadLocal.withInitial(() -> new BreadthFirstTree(board, piece));
+    }
+
+    /**
+     * Gets the board the planner plans on.
+     *
+     * @pre none
+     * @post none
+     * @return the board geometry
+     */
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Finds the shortest walk from the start through the waypoints in the order given.
+     *
+     * @param start the start square
+     * @param waypoints the squares to visit, in order
+     * @pre start and every waypoint are on the board && 0 < waypoints.size() <= MAX_WAYPOINTS
+     * @post none
+     * @return the route, or null if a waypoint cannot be reached
+     */
+    public Route planInOrder(Position start, List<Position> waypoints) {
+        int[] cells = this.cellsOf(start, waypoints);
+        int[] order = new int[cells.length];
+        for (int point = 0; point < order.length; point++) {
+            order[point] = point;
+        }
+        return this.stitch(cells, order, true, null);
+    }
+
+    /**
+     * Finds a short walk from the start through every waypoint in any order. The
+     * walk ends at the last waypoint visited. With up to EXACT_LIMIT waypoints
+     * the walk is the shortest there is.
+     *
+     * @param start the start square
+     * @param waypoints the squares to visit
+     * @pre start and every waypoint are on the board && 0 < waypoints.size() <= MAX_WAYPOINTS
+     * @post none
+     * @return the route, or null if a waypoint cannot be reached
+     */
+    public Route planBestOrder(Position start, List<Position> waypoints) {
+        int[] cells = this.cellsOf(start, waypoints);
+        boolean exact = waypoints.size() <= EXACT_LIMIT;
+        int[][] legs = exact ? new int[cells.length * cells.length][] : null;
+        int[] distances = this.distanceMatrix(cells, legs);
+        if (distances == null) {
+            return null;
+        }
+        int[] order = exact ? heldKarp(distances, cells.length) : nearestNeighbor(distances, cells.length);
+        if (!exact) {
+            improve(distances, order);
+        }
+        return this.stitch(cells, order, exact, legs);
+    }
+
+    private int[] cellsOf(Position start, List<Position> waypoints) {
+        if (waypoints == null || waypoints.isEmpty() || waypoints.size() > MAX_WAYPOINTS) {
+            throw new IllegalArgumentException("A route needs between 1 and " + MAX_WAYPOINTS + " waypoints.");
+        }
+        int[] cells = new int[waypoints.size() + 1];
+        int point = 0;
+        for (Position position : this.withStart(start, waypoints)) {
+            if (position == null || !this.board.contains(position)) {
+                throw new IllegalArgumentException("Every point of a route must be on the board.");
+            }
+            cells[point++] = this.board.indexOf(position);
+        }
+        return cells;
+    }
+
+    private List<Position> withStart(Position start, List<Position> waypoints) {
+        List<Position> points = new ArrayList<>(waypoints.size() + 1);
+        points.add(start);
+        points.addAll(waypoints);
+        return points;
+    }
+
+    /**
+     * Computes the number of moves between every pair of points, one search per
+     * point but the last. Point 0 is the start.
+     *
+     * @param cells the cells of the points
+     * @param legs if not null, receives at i * points + j the cells of a
+     *        shortest path from point j back to point i, for every point i but
+     *        the last
+     * @return the moves from point i to point j at i * points + j, or null if
+     *         some point cannot be reached from the start
+     */
+    private int[] distanceMatrix(int[] cells, int[][] legs) {
+        int points = cells.length;
+        int[] distances = new int[points * points];
+        this.pool.submit(() -> IntStream.range(0, points - 1).parallel().forEach(from -> {
+            BreadthFirstTree tree = this.trees.get();
+            tree.grow(cells[from]);
+            for (int to = 0; to < points; to++) {
+                int moves = tree.distanceTo(cells[to]);
+                distances[from * points + to] = moves;
+                if (legs != null && moves != UNREACHABLE) {
+                    legs[from * points + to] = walkToRoot(tree, cells[to], moves);
+                }
+            }
+        })).join();
+        int last = points - 1;
+        for (int to = 0; to < last; to++) {
+            distances[last * points + to] = distances[to * points + last];
+        }
+        for (int to = 1; to < points; to++) {
+            if (distances[to] == UNREACHABLE) {
+                return null;
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Solves the best order exactly. cost[set * n + j] is the fewest moves of a
+     * walk from the start through the set of waypoints that ends at waypoint j.
+     *
+     * @param distances the distance matrix
+     * @param points the number of points, start included
+     * @return the points in visiting order, start first
+     */
+    private static int[] heldKarp(int[] distances, int points) {
+        int n = points - 1;
+        int sets = 1 << n;
+        int[] cost = new int[sets * n];
+        byte[] previous = new byte[sets * n];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        for (int j = 0; j < n; j++) {
+            cost[(1 << j) * n + j] = distances[j + 1];
+        }
+        for (int set = 1; set < sets; set++) {
+            for (int j = 0; j < n; j++) {
+                int reached = cost[set * n + j];
+                if ((set & (1 << j)) == 0 || reached == Integer.MAX_VALUE) {
+                    continue;
+                }
+                int row = (j + 1) * points;
+                for (int k = 0; k < n; k++) {
+                    if ((set & (1 << k)) != 0) {
+                        continue;
+                    }
+                    int next = (set | (1 << k)) * n + k;
+                    int total = reached + distances[row + k + 1];
+                    if (total < cost[next]) {
+                        cost[next] = total;
+                        previous[next] = (byte) j;
+                    }
+                }
+            }
+        }
+
+        int full = sets - 1;
+        int end = 0;
+        for (int j = 1; j < n; j++) {
+            if (cost[full * n + j] < cost[full * n + end]) {
+                end = j;
+            }
+        }
+        int[] order = new int[points];
+        int set = full;
+        for (int index = n; index > 0; index--) {
+            order[index] = end + 1;
+            int before = previous[set * n + end];
+            set &= ~(1 << end);
+            end = before;
+        }
+        return order;
+    }
+
+    /**
+     * Builds an order by always going to the nearest waypoint not yet visited.
+     *
+     * @param distances the distance matrix
+     * @param points the number of points, start included
+     * @return the points in visiting order, start first
+     */
+    private static int[] nearestNeighbor(int[] distances, int points) {
+        int[] order = new int[points];
+        boolean[] visited = new boolean[points];
+        visited[0] = true;
+        for (int index = 1; index < points; index++) {
+            int row = order[index - 1] * points;
+            int nearest = -1;
+            for (int point = 1; point < points; point++) {
+                if (!visited[point] && (nearest == -1 || distances[row + point] < distances[row + nearest])) {
+                    nearest = point;
+                }
+            }
+            visited[nearest] = true;
+            order[index] = nearest;
+        }
+        return order;
+    }
+
+    /**
+     * Shortens an order by reversing stretches of it until no reversal helps or
+     * the pass limit is reached. The start stays first and the walk may end
+     * anywhere, so reversing a stretch at the end only changes the move into it.
+     *
+     * @param distances the distance matrix
+     * @param order the points in visiting order, start first
+     */
+    private static void improve(int[] distances, int[] order) {
+        int points = order.length;
+        boolean improved = true;
+        for (int pass = 0; improved && pass < IMPROVEMENT_PASSES; pass++) {
+            improved = false;
+            for (int first = 1; first < points - 1; first++) {
+                int before = order[first - 1] * points;
+                for (int last = first + 1; last < points; last++) {
+                    int current = distances[before + order[first]];
+                    int reversed = distances[before + order[last]];
+                    if (last + 1 < points) {
+                        current += distances[order[last] * points + order[last + 1]];
+                        reversed += distances[order[first] * points + order[last + 1]];
+                    }
+                    if (reversed < current) {
+                        reverse(order, first, last);
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void reverse(int[] order, int first, int last) {
+        for (int low = first, high = last; low < high; low++, high--) {
+            int point = order[low];
+            order[low] = order[high];
+            order[high] = point;
+        }
+    }
+
+    /**
+     * Walks a tree from a cell back to its root.
+     *
+     * @param tree the tree
+     * @param cell a reached cell
+     * @param moves the distance of the cell from the root
+     * @return the cell, its parent and so on, ending at the root
+     */
+    private static int[] walkToRoot(BreadthFirstTree tree, int cell, int moves) {
+        int[] walk = new int[moves + 1];
+        walk[0] = cell;
+        for (int index = 1; index <= moves; index++) {
+            walk[index] = tree.parentOf(walk[index - 1]);
+        }
+        return walk;
+    }
+
+    /**
+     * Joins the shortest paths between consecutive points of the order. A leg
+     * is read from the kept paths of the distance pass when there are any.
+     * Otherwise it is read from the search tree of its end, from its start
+     * towards the root, and each leg grows that tree with one breadth first
+     * search.
+     *
+     * @param cells the cells of the points
+     * @param order the points in visiting order, start first
+     * @param optimal whether the route is known to be optimal
+     * @param legs the kept paths of the distance pass, or null to search each leg
+     * @return the route, or null if a leg cannot be walked
+     */
+    private Route stitch(int[] cells, int[] order, boolean optimal, int[][] legs) {
+        int points = cells.length;
+        long[] path = new long[16];
+        int length = 0;
+        path[length++] = cells[order[0]];
+        List<Position> stops = new ArrayList<>(order.length - 1);
+        for (int index = 1; index < order.length; index++) {
+            int fromPoint = order[index - 1];
+            int toPoint = order[index];
+            int[] leg = legs == null ? this.searchLeg(cells[fromPoint], cells[toPoint])
+                    : fromPoint == points - 1 ? legs[toPoint * points + fromPoint]
+                    : reversed(legs[fromPoint * points + toPoint]);
+            if (leg == null) {
+                return null;
+            }
+            if (length + leg.length - 1 > path.length) {
+                path = Arrays.copyOf(path, Math.max(2 * path.length, length + leg.length - 1));
+            }
+            for (int step = 1; step < leg.length; step++) {
+                path[length++] = leg[step];
+            }
+            stops.add(this.board.positionAt(cells[toPoint]));
+        }
+        return new Route(stops, new SolutionPath(this.board.cols(), Arrays.copyOf(path, length)), optimal);
+    }
+
+    /**
+     * Finds one leg with a breadth first search from its end.
+     *
+     * @param from the cell the leg starts on
+     * @param to the cell the leg ends on
+     * @return the cells of the leg from start to end, or null if it cannot be walked
+     */
+    private int[] searchLeg(int from, int to) {
+        BreadthFirstTree tree = this.trees.get();
+        tree.grow(to);
+        int moves = tree.distanceTo(from);
+        if (moves == UNREACHABLE) {
+            return null;
+        }
+        return walkToRoot(tree, from, moves);
+    }
+
+    private static int[] reversed(int[] cells) {
+        int[] reversed = new int[cells.length];
+        for (int index = 0; index < cells.length; index++) {
+            reversed[index] = cells[cells.length - 1 - index];
+        }
+        return reversed;
+    }
+}
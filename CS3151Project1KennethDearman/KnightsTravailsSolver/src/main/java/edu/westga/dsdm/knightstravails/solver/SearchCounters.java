@@ -0,0 +1,47 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+/**
+ * The SearchCounters collect the work done by one query while metrics are on.
+ * The search engines fill them in once, after the search, from their queues
+ * and predecessor arrays, so a search run without counters does no extra work.
+ *
+ * @author Kenneth Dearman
+ */
+final class SearchCounters {
+    SearchMode mode;
+    long nodesExpanded;
+    long nodesReached;
+    long neighborsSkipped;
+    int peakFrontier;
+    long pathNanos;
+
+    /**
+     * Adds the work of one breadth first search. The queue holds the cells in
+     * the order they were reached, and the children of each expanded cell
+     * follow those of the cell expanded before it, which lets the size of the
+     * queue after every expansion be replayed.
+     *
+     * @param offsets the edge offsets of the searched knight move graph
+     * @param queue the search queue, starting with the root
+     * @param previous the predecessor of every reached cell
+     * @param expanded the number of cells taken off the queue
+     * @param reached the number of cells put on the queue
+     */
+    void addSearch(int[] offsets, int[] queue, int[] previous, int expanded, int reached) {
+        long scanned = 0;
+        int peak = 0;
+        int child = 1;
+        for (int i = 0; i < expanded; i++) {
+            int cell = queue[i];
+            scanned += offsets[cell + 1] - offsets[cell];
+            while (child < reached && previous[queue[child]] == cell) {
+                child++;
+            }
+            peak = Math.max(peak, child - i - 1);
+        }
+        this.nodesExpanded += expanded;
+        this.nodesReached += reached;
+        this.neighborsSkipped += scanned - (reached - 1);
+        this.peakFrontier = Math.max(this.peakFrontier, peak);
+    }
+}
@@ -0,0 +1,43 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+/**
+ * The ways SolvePuzzle can answer a query.
+ *
+ * @author Kenneth Dearman
+ */
+public enum SearchMode {
+    /**
+     * Runs a new breadth first search for every query.
+     */
+    BREADTH_FIRST,
+
+    /**
+     * Runs a breadth first search on int cell indices that reuses its buffers between queries.
+     */
+    PRIMITIVE_BREADTH_FIRST,
+
+    /**
+     * Searches from the start and the target at the same time until the two searches meet.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Expands each level of one breadth first search in parallel on the common fork-join pool, for very large boards.
+     */
+    PARALLEL_BREADTH_FIRST,
+
+    /**
+     * Picks a one-sided, two-sided or large board search for each query from the board size.
+     */
+    ADAPTIVE,
+
+    /**
+     * Walks the shared all-pairs table of the board, which is built on first use.
+     */
+    PRECOMPUTED_TABLE,
+
+    /**
+     * Closes the distance with greedy moves and finishes with a windowed search, for boards too large to search outright.
+     */
+    LARGE_BOARD
+}
@@ -0,0 +1,58 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of searchers that hold board-sized buffers. A query borrows a
+ * searcher, runs on it and gives it back, so buffers outlive the threads that
+ * use them. Searchers are created the first time they are needed and at most
+ * capacity of them ever exist; a query that finds all of them in use waits
+ * for one to be given back.
+ *
+ * @param <T> the type of searcher
+ * @author Kenneth Dearman
+ */
+final class SearcherPool<T> {
+    private final Supplier<T> factory;
+    private final Queue<T> idle;
+    private final Semaphore available;
+
+    SearcherPool(Supplier<T> factory, int capacity) {
+        this.factory = factory;
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.available = new Semaphore(capacity);
+    }
+
+    /**
+     * Takes an idle searcher, creating one if fewer than capacity exist, and
+     * waits otherwise.
+     *
+     * @return a searcher only the caller uses until it is released
+     */
+    T borrow() {
+        this.available.acquireUninterruptibly();
+        T searcher = this.idle.poll();
+        if (searcher != null) {
+            return searcher;
+        }
+        try {
+            return this.factory.get();
+        } catch (RuntimeException | Error exception) {
+            this.available.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Gives a borrowed searcher back.
+     *
+     * @param searcher the searcher, no longer used by the caller
+     */
+    void release(T searcher) {
+        this.idle.offer(searcher);
+        this.available.release();
+    }
+}
@@ -0,0 +1,174 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A SolutionPath is an immutable shortest path from a start to a target
+ * position, or for a Route the shortest paths between its stops joined
+ * together. The solver copies the cells of the path out of its predecessor
+ * array as row * cols + col, one long per square, and positions are only
+ * created when they are read. A path may be shared freely between threads.
+ *
+ * @author Kenneth Dearman
+ */
+public final class SolutionPath implements Iterable<Position> {
+    private final int cols;
+    private final long[] cells;
+
+    /**
+     * Instantiates a path from its encoded cells, start first.
+     *
+     * @param cols the number of columns of the board
+     * @param cells the cells of the path, which the path takes ownership of
+     */
+    SolutionPath(int cols, long[] cells) {
+        this.cols = cols;
+        this.cells = cells;
+    }
+
+    /**
+     * Gets the path that a predecessor array links from start to end.
+     *
+     * @param cols the number of columns of the board
+     * @param previous the predecessor of every reached cell, with previous[start] == start
+     * @param start the start cell
+     * @param end the end cell
+     * @return the path from start to end
+     */
+    static SolutionPath fromPredecessors(int cols, int[] previous, int start, int end) {
+        int length = 0;
+        for (int current = end; current != start; current = previous[current]) {
+            length++;
+        }
+        long[] cells = new long[length + 1];
+        int current = end;
+        for (int index = length; index >= 0; index--) {
+            cells[index] = current;
+            current = previous[current];
+        }
+        return new SolutionPath(cols, cells);
+    }
+
+    /**
+     * Gets the path through the specified positions.
+     *
+     * @param board the board of the positions
+     * @param positions the positions, start first
+     * @pre board != null && positions != null && !positions.isEmpty()
+     * @post none
+     * @return the path
+     */
+    public static SolutionPath of(BoardGeometry board, List<Position> positions) {
+        if (board == null || positions == null || positions.isEmpty()) {
+            throw new IllegalArgumentException("A path needs a board and at least one position.");
+        }
+        long[] cells = new long[positions.size()];
+        int index = 0;
+        for (Position position : positions) {
+            cells[index++] = (long) position.row() * board.cols() + position.col();
+        }
+        return new SolutionPath(board.cols(), cells);
+    }
+
+    /**
+     * Gets the number of moves on the path.
+     *
+     * @pre none
+     * @post none
+     * @return the number of moves
+     */
+    public int length() {
+        return this.cells.length - 1;
+    }
+
+    /**
+     * Gets the position after the specified number of moves.
+     *
+     * @param index the number of moves from the start
+     * @pre 0 <= index <= length()
+     * @post none
+     * @return the position
+     */
+    public Position get(int index) {
+        if (index < 0 || index >= this.cells.length) {
+            throw new IndexOutOfBoundsException("index is not on the path");
+        }
+        return Position.of((int) (this.cells[index] / this.cols), (int) (this.cells[index] % this.cols));
+    }
+
+    /**
+     * Gets the starting position.
+     *
+     * @pre none
+     * @post none
+     * @return the starting position
+     */
+    public Position getStart() {
+        return this.get(0);
+    }
+
+    /**
+     * Gets the target position.
+     *
+     * @pre none
+     * @post none
+     * @return the target position
+     */
+    public Position getEnd() {
+        return this.get(this.cells.length - 1);
+    }
+
+    @Override
+    public Iterator<Position> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < SolutionPath.this.cells.length;
+            }
+
+            @Override
+            public Position next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return SolutionPath.this.get(this.next++);
+            }
+        };
+    }
+
+    /**
+     * Gets the positions of the path as a stream, start first.
+     *
+     * @pre none
+     * @post none
+     * @return the stream of positions
+     */
+    public Stream<Position> stream() {
+        return IntStream.range(0, this.cells.length).mapToObj(this::get);
+    }
+
+    /**
+     * Copies the path into a new linked list, for callers of the list based API.
+     *
+     * @pre none
+     * @post none
+     * @return the positions of the path, start first
+     */
+    public LinkedList<Position> toLinkedList() {
+        LinkedList<Position> path = new LinkedList<>();
+        for (Position position : this) {
+            path.add(position);
+        }
+        return path;
+    }
+}
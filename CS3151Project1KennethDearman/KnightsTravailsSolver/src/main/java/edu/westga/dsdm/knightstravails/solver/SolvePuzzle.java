@@ -0,0 +1,414 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The Solve Puzzle Class.
+ *
+ * <p>A SolvePuzzle is thread-safe and may be shared by any number of threads.
+ * It keeps no result of a query between calls. The search modes that reuse
+ * buffers between queries borrow a searcher from a pool for the length of one
+ * query and give it back, so a thread per query, such as a virtual thread per
+ * request, does not allocate new buffers. There is at most one searcher of
+ * each kind per processor, and a query that finds them all busy waits for
+ * one, which costs little since the searches are bound by the processors
+ * anyway. The precomputed table is immutable once built. Every returned
+ * path is a new list owned by the caller.</p>
+ *
+ * <p>Path queries are measured by the SolverMetrics given to setMetrics while
+ * those are enabled. Otherwise a query only reads the metrics field.</p>
+ *
+ * @author Kenneth Dearman
+ */
+public class SolvePuzzle implements Solver {
+    private final SearchMode mode;
+    private final BoardGeometry board;
+    private final Piece piece;
+    private final SearcherPool<IntBreadthFirstSearch> primitiveSearch;
+    private final SearcherPool<BidirectionalSearch> bidirectionalSearch;
+    private final ParallelBreadthFirstSearch parallelSearch;
+    private volatile SolverMetrics metrics;
+    static final int[][] POSSIBLE_MOVES = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int ONE_SIDED_MAX_CELLS = 1024;
+    private static final int ONE_SIDED_MAX_DISTANCE = 3;
+
+    /**
+     * instantiates a new instance of SolvePuzzle that runs a breadth first search for every query on the standard board.
+     * @pre none
+     * @post none
+     */
+    public SolvePuzzle() {
+        this(SearchMode.BREADTH_FIRST);
+    }
+
+    /**
+     * instantiates a new instance of SolvePuzzle that answers queries on the standard board with the specified mode.
+     * @param mode the search mode
+     * @pre mode != null
+     * @post none
+     */
+    public SolvePuzzle(SearchMode mode) {
+        this(BoardGeometry.STANDARD, mode);
+    }
+
+    /**
+     * instantiates a new instance of SolvePuzzle that answers queries on the specified board with the specified mode.
+     * @param board the board to solve on
+     * @param mode the search mode
+     * @pre board != null && mode != null
+     *      && (mode != SearchMode.PARALLEL_BREADTH_FIRST || board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS)
+     *      && (mode != SearchMode.PRECOMPUTED_TABLE || AllPairsTable.isAvailable(board.rows(), board.cols()))
+     * @post none
+     */
+    public SolvePuzzle(BoardGeometry board, SearchMode mode) {
+        this(board, mode, Piece.KNIGHT);
+    }
+
+    /**
+     * instantiates a new instance of SolvePuzzle that answers queries for the specified piece on the specified board
+     * with the specified mode. The precomputed table and the large board search only know knight moves, so other
+     * pieces are searched on their own move graph and the board must be small enough to build it. The precomputed
+     * table needs a board of at most AllPairsTable.MAX_CELLS cells, or a larger table already loaded from a file
+     * with AllPairsTable.forBoard(rows, cols, directory).
+     * @param board the board to solve on
+     * @param mode the search mode
+     * @param piece the piece that moves
+     * @pre board != null && mode != null && piece != null
+     *      && (mode != SearchMode.PARALLEL_BREADTH_FIRST || board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS)
+     *      && (piece.isKnight() || (mode != SearchMode.PRECOMPUTED_TABLE && mode != SearchMode.LARGE_BOARD
+     *      && board.cellCount() <= IntBreadthFirstSearch.MAX_CELLS))
+     *      && (mode != SearchMode.PRECOMPUTED_TABLE || AllPairsTable.isAvailable(board.rows(), board.cols()))
+     * @post getPiece() == piece
+     */
+    public SolvePuzzle(BoardGeometry board, SearchMode mode, Piece piece) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board cannot be null.");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("Search mode cannot be null.");
+        }
+        if (piece == null) {
+            throw new IllegalArgumentException("Piece cannot be null.");
+        }
+        if (!piece.isKnight() && (mode == SearchMode.PRECOMPUTED_TABLE || mode == SearchMode.LARGE_BOARD
+                || board.cellCount() > IntBreadthFirstSearch.MAX_CELLS)) {
+            throw new IllegalArgumentException(mode + " cannot be used for the " + piece.name() + " on this board.");
+        }
+        if (mode == SearchMode.PRECOMPUTED_TABLE && !AllPairsTable.isAvailable(board.rows(), board.cols())) {
+            throw new IllegalArgumentException("board is too large for an all-pairs table; load one from a file first.");
+        }
+        this.mode = mode;
+        this.board = board;
+        this.piece = piece;
+        int pooled = Runtime.getRuntime().availableProcessors();
+        this.primitiveSearch = new SearcherPool<>(() -> new IntBreadthFirstSearch(board, piece), pooled);
+        this.bidirectionalSearch = new SearcherPool<>(() -> new BidirectionalSearch(board, piece), pooled);
+        this.parallelSearch = mode == SearchMode.PARALLEL_BREADTH_FIRST
+                ? new ParallelBreadthFirstSearch(board, piece, ForkJoinPool.commonPool()) : null;
+    }
+
+    /**
+     * Gets the board the solver answers queries on.
+     * @pre none
+     * @post none
+     * @return the board geometry
+     */
+    @Override
+    public BoardGeometry getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Gets the piece the solver finds paths for.
+     * @pre none
+     * @post none
+     * @return the piece
+     */
+    @Override
+    public Piece getPiece() {
+        return this.piece;
+    }
+
+    /**
+     * Sets the metrics that measure the path queries of the solver.
+     * @param metrics the metrics, or null to measure nothing
+     * @pre none
+     * @post getMetrics() == metrics
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the metrics that measure the path queries of the solver.
+     * @pre none
+     * @post none
+     * @return the metrics, or null if none are set
+     */
+    public SolverMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Finds a shortest path between two positions with the search mode of the solver.
+     * @param startPos the current/starting position
+     * @param endPos the end/target position
+     * @pre start != null && end != null && getBoard().contains(start) && getBoard().contains(end)
+     * @post none
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    @Override
+    public SolutionPath findPath(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        SolverMetrics queryMetrics = this.metrics;
+        if (queryMetrics == null || !queryMetrics.isEnabled()) {
+            return this.searchPath(startPos, endPos, null);
+        }
+        SearchCounters counters = new SearchCounters();
+        long queryStart = System.nanoTime();
+        SolutionPath path = this.searchPath(startPos, endPos, counters);
+        queryMetrics.record(counters, System.nanoTime() - queryStart, path == null ? -1 : path.length());
+        return path;
+    }
+
+    /**
+     * Runs the search of the solver for one path query.
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @param counters the counters to add the work of the search to, or null to not count
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    private SolutionPath searchPath(Position startPos, Position endPos, SearchCounters counters) {
+        SearchMode queryMode = this.mode;
+        if (queryMode == SearchMode.ADAPTIVE) {
+            queryMode = this.chooseMode(startPos, endPos);
+        }
+        if (counters != null) {
+            counters.mode = queryMode;
+        }
+        if (queryMode == SearchMode.BREADTH_FIRST) {
+            LinkedList<Position> path = this.breadthFirst(startPos, endPos, counters);
+            return path == null ? null : SolutionPath.of(this.board, path);
+        }
+        if (queryMode == SearchMode.PRECOMPUTED_TABLE) {
+            return this.walkTable(startPos, endPos);
+        }
+        if (queryMode == SearchMode.PRIMITIVE_BREADTH_FIRST) {
+            IntBreadthFirstSearch search = this.primitiveSearch.borrow();
+            try {
+                return search.findPath(startPos, endPos, counters);
+            } finally {
+                this.primitiveSearch.release(search);
+            }
+        }
+        if (queryMode == SearchMode.BIDIRECTIONAL) {
+            BidirectionalSearch search = this.bidirectionalSearch.borrow();
+            try {
+                return search.findPath(startPos, endPos, counters);
+            } finally {
+                this.bidirectionalSearch.release(search);
+            }
+        }
+        if (queryMode == SearchMode.PARALLEL_BREADTH_FIRST) {
+            return this.parallelSearch.findPath(startPos, endPos);
+        }
+        return new LargeBoardSearch(this.board).findPath(startPos, endPos);
+    }
+
+    /**
+     * Solves the Knight transversal puzzle.
+     * @param startPos the current/starting position
+     * @param endPos the end/target position
+     * @pre start != null && end != null && getBoard().contains(start) && getBoard().contains(end)
+     * @post none
+     * @return the linked list of the solution path from the start to the target position
+     */
+    @Override
+    public LinkedList<Position> getSolution(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        if (this.mode != SearchMode.BREADTH_FIRST) {
+            SolutionPath path = this.findPath(startPos, endPos);
+            return path == null ? null : path.toLinkedList();
+        }
+        SolverMetrics queryMetrics = this.metrics;
+        if (queryMetrics == null || !queryMetrics.isEnabled()) {
+            return this.breadthFirst(startPos, endPos, null);
+        }
+        SearchCounters counters = new SearchCounters();
+        counters.mode = SearchMode.BREADTH_FIRST;
+        long queryStart = System.nanoTime();
+        LinkedList<Position> path = this.breadthFirst(startPos, endPos, counters);
+        queryMetrics.record(counters, System.nanoTime() - queryStart, path == null ? -1 : path.size() - 1);
+        return path;
+    }
+
+    /**
+     * Runs a breadth first search over positions.
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @param counters the counters to add the work of the search to, or null to not count
+     * @return the linked list of the solution path from the start to the target position, or null if there is none
+     */
+    private LinkedList<Position> breadthFirst(Position startPos, Position endPos, SearchCounters counters) {
+        KnightMoveGraph graph = KnightMoveGraph.forPiece(this.board, this.piece);
+        Queue<Position> nextNodes = new LinkedList<>();
+        HashMap<Position, Position> previous = new HashMap<>();
+        HashSet<Position> selected = new HashSet<>();
+
+        nextNodes.add(startPos);
+        selected.add(startPos);
+        previous.put(startPos, null);
+        int expanded = 0;
+        int skipped = 0;
+        int peak = 0;
+
+        while (!nextNodes.isEmpty()) {
+            Position original = nextNodes.poll();
+
+            if (original.equals(endPos)) {
+                this.addSearch(counters, expanded, selected.size(), skipped, peak);
+                if (counters == null) {
+                    return this.getPath(previous, endPos);
+                }
+                long pathStart = System.nanoTime();
+                LinkedList<Position> path = this.getPath(previous, endPos);
+                counters.pathNanos += System.nanoTime() - pathStart;
+                return path;
+            }
+
+            int cell = this.board.indexOf(original);
+            expanded++;
+
+            for (int index = 0; index < graph.degree(cell); index++) {
+                Position neighbor = this.board.positionAt(graph.neighbor(cell, index));
+
+                if (!selected.contains(neighbor)) {
+                    nextNodes.add(neighbor);
+                    previous.put(neighbor, original);
+                    selected.add(neighbor);
+                } else {
+                    skipped++;
+                }
+            }
+            peak = Math.max(peak, nextNodes.size());
+        }
+        this.addSearch(counters, expanded, selected.size(), skipped, peak);
+        return null;
+    }
+
+    private void addSearch(SearchCounters counters, int expanded, int reached, int skipped, int peak) {
+        if (counters != null) {
+            counters.nodesExpanded += expanded;
+            counters.nodesReached += reached;
+            counters.neighborsSkipped += skipped;
+            counters.peakFrontier = Math.max(counters.peakFrontier, peak);
+        }
+    }
+
+    /**
+     * Gets the minimum number of moves between two positions. The closed form
+     * knight distance is used when the piece is a knight and it applies to the
+     * board, otherwise a search is run.
+     * @param startPos the current/starting position
+     * @param endPos the end/target position
+     * @pre start != null && end != null && getBoard().contains(start) && getBoard().contains(end)
+     * @post none
+     * @return the minimum number of moves, or -1 if the target cannot be reached
+     */
+    @Override
+    public int distance(Position startPos, Position endPos) {
+        this.checkPositions(startPos, endPos);
+        if (this.piece.isKnight() && KnightDistance.appliesTo(this.board)) {
+            return KnightDistance.onBoard(this.board, startPos.row(), startPos.col(), endPos.row(), endPos.col());
+        }
+        SolutionPath path = this.findPath(startPos, endPos);
+        if (path == null) {
+            return -1;
+        }
+        return path.length();
+    }
+
+    private void checkPositions(Position startPos, Position endPos) {
+        if (startPos == null || endPos == null) {
+            throw new IllegalArgumentException("Either start or end position cannot be null.");
+        }
+        if (!this.board.contains(startPos) || !this.board.contains(endPos)) {
+            throw new IllegalArgumentException("Either start or end position is not on the board.");
+        }
+    }
+
+    /**
+     * Chooses the search for one query. Small boards and nearby targets are
+     * cheapest to search from one side, boards too large for a full search use
+     * the large board search, and everything in between searches from both ends.
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @return the search mode for the query
+     */
+    private SearchMode chooseMode(Position startPos, Position endPos) {
+        if (this.board.cellCount() > IntBreadthFirstSearch.MAX_CELLS) {
+            return SearchMode.LARGE_BOARD;
+        }
+        if (this.board.cellCount() <= ONE_SIDED_MAX_CELLS) {
+            return SearchMode.PRIMITIVE_BREADTH_FIRST;
+        }
+        int rowDifference = endPos.row() - startPos.row();
+        int colDifference = endPos.col() - startPos.col();
+        int estimate = this.piece.isKnight() ? KnightDistance.onOpenBoard(rowDifference, colDifference)
+                : this.piece.moves().lowerBound(rowDifference, colDifference);
+        if (estimate <= ONE_SIDED_MAX_DISTANCE) {
+            return SearchMode.PRIMITIVE_BREADTH_FIRST;
+        }
+        return SearchMode.BIDIRECTIONAL;
+    }
+
+    /**
+     * Gets the solution path from the passed in predecessor hashmap.
+     * @param predecessor the hashmap of previous nodes
+     * @param endPosition the target node to reach
+     * @return a linked list that is the solution path from start to finish
+     */
+    private LinkedList<Position> getPath(HashMap<Position, Position> predecessor, Position endPosition) {
+        LinkedList<Position> path = new LinkedList<>();
+        Position current = endPosition;
+
+        while (current != null) {
+            path.addFirst(current);
+            current = predecessor.get(current);
+        }
+        return path;
+    }
+
+    /**
+     * Gets the solution path by following the next hops of the all-pairs table.
+     * @param startPos the starting position
+     * @param endPos the target position
+     * @return the solution path from start to finish, or null if there is none
+     */
+    private SolutionPath walkTable(Position startPos, Position endPos) {
+        int cols = this.board.cols();
+        AllPairsTable table = AllPairsTable.forBoard(this.board.rows(), cols);
+        int current = this.board.indexOf(startPos);
+        int end = this.board.indexOf(endPos);
+        int length = table.distance(current, end);
+        if (length == AllPairsTable.UNREACHABLE) {
+            return null;
+        }
+        long[] cells = new long[length + 1];
+        cells[0] = current;
+
+        for (int index = 1; index <= length; index++) {
+            current = table.nextHop(current, end);
+            cells[index] = current;
+        }
+        return new SolutionPath(cols, cells);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.LinkedList;
+
+/**
+ * A Solver finds shortest knight paths and knight distances on one board.
+ *
+ * @author Kenneth Dearman
+ */
+public interface Solver {
+    /**
+     * Gets the board the solver answers queries on.
+     *
+     * @pre none
+     * @post none
+     * @return the board geometry
+     */
+    BoardGeometry getBoard();
+
+    /**
+     * Gets the piece the solver finds paths for.
+     *
+     * @pre none
+     * @post none
+     * @return the piece, the knight unless the solver says otherwise
+     */
+    default Piece getPiece() {
+        return Piece.KNIGHT;
+    }
+
+    /**
+     * Finds a shortest path between two positions.
+     *
+     * @param startPos the current/starting position
+     * @param endPos the end/target position
+     * @pre start != null && end != null && getBoard().contains(start) && getBoard().contains(end)
+     * @post none
+     * @return the solution path from the start to the target position, or null if there is none
+     */
+    SolutionPath findPath(Position startPos, Position endPos);
+
+    /**
+     * Solves the Knight transversal puzzle. This copies the result of findPath
+     * into a linked list for callers of the list based API.
+     *
+     * @param startPos the current/starting position
+     * @param endPos the end/target position
+     * @pre start != null && end != null && getBoard().contains(start) && getBoard().contains(end)
+     * @post none
+     * @return the linked list of the solution path from the start to the target position, or null if there is none
+     */
+    default LinkedList<Position> getSolution(Position startPos, Position endPos) {
+        SolutionPath path = this.findPath(startPos, endPos);
+        if (path == null) {
+            return null;
+        }
+        return path.toLinkedList();
+    }
+
+    /**
+     * Gets the minimum number of moves between two positions.
+     *
+     * @param startPos the current/starting position
+     * @param endPos the end/target position
+     * @pre start != null && end != null && getBoard().contains(start) && getBoard().contains(end)
+     * @post none
+     * @return the minimum number of moves, or -1 if the target cannot be reached
+     */
+    int distance(Position startPos, Position endPos);
+}
@@ -0,0 +1,252 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The SolverMetrics measure the queries of the solvers they are given to. For
+ * every query they keep the latency in a LatencyHistogram, add the search work
+ * to cumulative counters and pass the QueryStats to the listeners. While the
+ * metrics are off a solver checks one volatile flag per query and does nothing
+ * else, so metrics can stay attached in production. The metrics can be
+ * published through JMX with register.
+ *
+ * @author Kenneth Dearman
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private volatile boolean enabled;
+    private volatile QueryStats lastQuery;
+    private final LatencyHistogram latencies;
+    private final LongAdder unreachable;
+    private final LongAdder nodesExpanded;
+    private final LongAdder nodesReached;
+    private final LongAdder neighborsSkipped;
+    private final LongAdder pathNanos;
+    private final LongAccumulator peakFrontier;
+    private final List<QueryStatsListener> listeners;
+
+    /**
+     * Instantiates new metrics.
+     *
+     * @param enabled true to start measuring right away
+     * @pre none
+     * @post isEnabled() == enabled && getQueryCount() == 0
+     */
+    public SolverMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.latencies = new LatencyHistogram();
+        this.unreachable = new LongAdder();
+        this.nodesExpanded = new LongAdder();
+        this.nodesReached = new LongAdder();
+        this.neighborsSkipped = new LongAdder();
+        this.pathNanos = new LongAdder();
+        this.peakFrontier = new LongAccumulator(Math::max, 0);
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records one answered query.
+     *
+     * @param counters the search work of the query
+     * @param latencyNanos the time taken by the query
+     * @param pathLength the number of moves of the path, or -1 if there is none
+     */
+    void record(SearchCounters counters, long latencyNanos, int pathLength) {
+        this.latencies.record(latencyNanos);
+        if (pathLength < 0) {
+            this.unreachable.increment();
+        }
+        this.nodesExpanded.add(counters.nodesExpanded);
+        this.nodesReached.add(counters.nodesReached);
+        this.neighborsSkipped.add(counters.neighborsSkipped);
+        this.pathNanos.add(counters.pathNanos);
+        this.peakFrontier.accumulate(counters.peakFrontier);
+        QueryStats stats = new QueryStats(counters.mode, latencyNanos, pathLength, counters.nodesExpanded,
+                counters.nodesReached, counters.neighborsSkipped, counters.peakFrontier, counters.pathNanos);
+        this.lastQuery = stats;
+        for (QueryStatsListener listener : this.listeners) {
+            listener.queryAnswered(stats);
+        }
+    }
+
+    /**
+     * Gets the stats of the most recently measured query of any thread.
+     *
+     * @pre none
+     * @post none
+     * @return the stats, or null if no query was measured
+     */
+    public QueryStats getLastQuery() {
+        return this.lastQuery;
+    }
+
+    /**
+     * Gets the histogram of query latencies in nanoseconds.
+     *
+     * @pre none
+     * @post none
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatencies() {
+        return this.latencies;
+    }
+
+    /**
+     * Adds a listener that is told about every measured query.
+     *
+     * @param listener the listener
+     * @pre listener != null
+     * @post the listener is called after every measured query
+     */
+    public void addListener(QueryStatsListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     * @pre none
+     * @post the listener is no longer called
+     */
+    public void removeListener(QueryStatsListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public long getQueryCount() {
+        return this.latencies.getCount();
+    }
+
+    @Override
+    public long getUnreachableCount() {
+        return this.unreachable.sum();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return this.nodesExpanded.sum();
+    }
+
+    @Override
+    public long getNodesReached() {
+        return this.nodesReached.sum();
+    }
+
+    @Override
+    public long getNeighborsSkipped() {
+        return this.neighborsSkipped.sum();
+    }
+
+    @Override
+    public int getPeakFrontier() {
+        return (int) this.peakFrontier.get();
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return this.latencies.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return this.latencies.getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return this.latencies.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return this.latencies.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return this.latencies.getMax() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMeanPathMicros() {
+        long count = this.latencies.getCount();
+        return count == 0 ? 0 : this.pathNanos.sum() / NANOS_PER_MICRO / count;
+    }
+
+    @Override
+    public void reset() {
+        this.latencies.reset();
+        this.unreachable.reset();
+        this.nodesExpanded.reset();
+        this.nodesReached.reset();
+        this.neighborsSkipped.reset();
+        this.pathNanos.reset();
+        this.peakFrontier.reset();
+        this.lastQuery = null;
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server as
+     * edu.westga.dsdm.knightstravails:type=SolverMetrics,name=name.
+     *
+     * @param name the name the metrics are published under
+     * @pre name != null && !name.isBlank() && no metrics are published under name
+     * @post the metrics can be read and switched through JMX
+     * @return the object name of the published metrics
+     */
+    public ObjectName register(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("name cannot be blank");
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName("edu.westga.dsdm.knightstravails:type=SolverMetrics,name="
+                    + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException exception) {
+            throw new IllegalStateException("metrics could not be published as " + name, exception);
+        }
+    }
+
+    /**
+     * Removes the metrics published under the specified object name.
+     *
+     * @param objectName the object name returned by register
+     * @pre objectName != null
+     * @post the metrics are no longer published under objectName
+     */
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            throw new IllegalArgumentException("object name cannot be null");
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException exception) {
+            throw new IllegalStateException("metrics were not published as " + objectName, exception);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+/**
+ * The management interface of SolverMetrics. Latencies are reported in
+ * microseconds.
+ *
+ * @author Kenneth Dearman
+ */
+public interface SolverMetricsMXBean {
+    /**
+     * Checks if queries are being measured.
+     *
+     * @return true if metrics are on
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns the measuring of queries on or off.
+     *
+     * @param enabled true to turn metrics on
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Gets the number of measured queries.
+     *
+     * @return the number of queries
+     */
+    long getQueryCount();
+
+    /**
+     * Gets the number of measured queries whose target could not be reached.
+     *
+     * @return the number of unreachable queries
+     */
+    long getUnreachableCount();
+
+    /**
+     * Gets the total number of squares taken off a search queue.
+     *
+     * @return the number of expanded squares
+     */
+    long getNodesExpanded();
+
+    /**
+     * Gets the total number of squares put on a search queue.
+     *
+     * @return the number of reached squares
+     */
+    long getNodesReached();
+
+    /**
+     * Gets the total number of knight moves that led to a square already reached.
+     *
+     * @return the number of skipped neighbors
+     */
+    long getNeighborsSkipped();
+
+    /**
+     * Gets the largest number of squares waiting on a search queue in any query.
+     *
+     * @return the peak frontier size
+     */
+    int getPeakFrontier();
+
+    /**
+     * Gets the mean query latency.
+     *
+     * @return the mean latency in microseconds
+     */
+    double getMeanLatencyMicros();
+
+    /**
+     * Gets the median query latency.
+     *
+     * @return the median latency in microseconds
+     */
+    double getLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile query latency.
+     *
+     * @return the 99th percentile latency in microseconds
+     */
+    double getLatencyP99Micros();
+
+    /**
+     * Gets the 99.9th percentile query latency.
+     *
+     * @return the 99.9th percentile latency in microseconds
+     */
+    double getLatencyP999Micros();
+
+    /**
+     * Gets the largest query latency.
+     *
+     * @return the largest latency in microseconds
+     */
+    double getMaxLatencyMicros();
+
+    /**
+     * Gets the mean time spent building paths from search results.
+     *
+     * @return the mean path building time in microseconds
+     */
+    double getMeanPathMicros();
+
+    /**
+     * Clears every counter and the latency histogram.
+     */
+    void reset();
+}
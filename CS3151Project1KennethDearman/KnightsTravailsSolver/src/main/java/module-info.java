@@ -0,0 +1,9 @@
+module edu.westga.dsdm.knightstravails.solver {
+    requires transitive java.management;
+    requires static jdk.httpserver;
+
+    exports edu.westga.dsdm.knightstravails.model;
+    exports edu.westga.dsdm.knightstravails.solver;
+    exports edu.westga.dsdm.knightstravails.cli;
+    exports edu.westga.dsdm.knightstravails.server;
+}
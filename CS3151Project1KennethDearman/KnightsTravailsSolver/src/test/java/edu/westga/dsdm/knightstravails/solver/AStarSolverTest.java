@@ -0,0 +1,60 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Piece;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that A* finds shortest paths for leapers other than the knight.
+ *
+ * @author Kenneth Dearman
+ */
+class AStarSolverTest {
+    private static final BoardGeometry BOARD = new BoardGeometry(11, 13);
+
+    @Test
+    void everyLeaperGetsShortestPaths() {
+        for (Piece piece : new Piece[] {Piece.KNIGHT, Piece.CAMEL, Piece.ZEBRA, Piece.leaper("giraffe", 4, 1)}) {
+            AStarSolver solver = new AStarSolver(BOARD, piece);
+            IntBreadthFirstSearch reference = new IntBreadthFirstSearch(BOARD, piece);
+            assertEquals(piece, solver.getPiece());
+            for (int start = 0; start < BOARD.cellCount(); start += 7) {
+                for (int end = 0; end < BOARD.cellCount(); end++) {
+                    Position startPos = BOARD.positionAt(start);
+                    Position endPos = BOARD.positionAt(end);
+                    SolutionPath shortest = reference.findPath(startPos, endPos);
+                    int expected = shortest == null ? -1 : shortest.length();
+                    SolutionPath path = solver.findPath(startPos, endPos);
+                    assertEquals(expected, path == null ? -1 : path.length(), piece.name() + " " + startPos + " to " + endPos);
+                    assertEquals(expected, solver.distance(startPos, endPos));
+                    if (path != null) {
+                        assertLegal(piece, path);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void otherPiecesNeedABoardSmallEnoughForTheBuffers() {
+        int side = (int) Math.sqrt(IntBreadthFirstSearch.MAX_CELLS) + 1;
+        BoardGeometry huge = new BoardGeometry(side, side);
+
+        assertThrows(IllegalArgumentException.class, () -> new AStarSolver(huge, Piece.CAMEL));
+    }
+
+    private static void assertLegal(Piece piece, SolutionPath path) {
+        for (int step = 1; step <= path.length(); step++) {
+            Position from = path.get(step - 1);
+            Position to = path.get(step);
+            assertTrue(piece.moves().contains(to.row() - from.row(), to.col() - from.col()),
+                    piece.name() + " cannot move from " + from + " to " + to);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the all-pairs table on boards two squares wide, where knight
+ * distances run far past what a byte can hold.
+ *
+ * @author Kenneth Dearman
+ */
+class AllPairsTableTest {
+    private static final int NARROW_ROWS = 2;
+
+    @Test
+    void distancesOnANarrowBoardDoNotWrap() {
+        AllPairsTable table = AllPairsTable.forBoard(NARROW_ROWS, 2048);
+
+        assertEquals(500, table.distance(0, 1000));
+        assertEquals(500, table.distance(1000, 0));
+        assertEquals(AllPairsTable.UNREACHABLE, table.distance(0, 1));
+    }
+
+    @Test
+    void precomputedTableFindsLongPathsOnANarrowBoard() {
+        BoardGeometry board = new BoardGeometry(NARROW_ROWS, 2048);
+        SolvePuzzle solver = new SolvePuzzle(board, SearchMode.PRECOMPUTED_TABLE);
+        Position start = board.positionAt(0, 0);
+        Position target = board.positionAt(0, 1000);
+
+        SolutionPath path = solver.findPath(start, target);
+
+        assertNotNull(path);
+        assertEquals(500, path.length());
+        assertEquals(start, path.get(0));
+        assertEquals(target, path.get(path.length()));
+        for (int step = 1; step <= path.length(); step++) {
+            int rowStep = Math.abs(path.get(step).row() - path.get(step - 1).row());
+            int colStep = Math.abs(path.get(step).col() - path.get(step - 1).col());
+            assertTrue(rowStep * colStep == 2, "step " + step + " is not a knight move");
+        }
+        assertEquals(500, solver.distance(start, target));
+    }
+
+    @Test
+    void precomputedTableRejectsBoardsTooLargeToBuildInMemory() {
+        BoardGeometry board = new BoardGeometry(100, 100);
+
+        assertFalse(AllPairsTable.isAvailable(100, 100));
+        assertThrows(IllegalArgumentException.class, () -> new SolvePuzzle(board, SearchMode.PRECOMPUTED_TABLE));
+    }
+
+    @Test
+    void fileBackedTableKeepsLongDistances() throws IOException {
+        Path directory = Files.createTempDirectory("all-pairs");
+        try {
+            AllPairsTable table = AllPairsTable.forBoard(NARROW_ROWS, 300, directory);
+
+            assertTrue(table.isMapped());
+            assertEquals(148, table.distance(0, 296));
+            assertEquals(AllPairsTable.UNREACHABLE, table.distance(0, 1));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void unwritableDirectoryFallsBackToMemoryOnlyForSmallBoards() throws IOException {
+        Path notADirectory = Files.createTempFile("all-pairs", ".txt");
+        try {
+            AllPairsTable small = AllPairsTable.forBoard(NARROW_ROWS, 40, notADirectory);
+
+            assertFalse(small.isMapped());
+            assertEquals(18, small.distance(0, 36));
+            assertThrows(UncheckedIOException.class, () -> AllPairsTable.forBoard(NARROW_ROWS, 2100, notADirectory));
+        } finally {
+            Files.delete(notADirectory);
+        }
+    }
+
+    @Test
+    void concurrentRequestsShareOneTable() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<AllPairsTable>> tables = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                tables.add(pool.submit(() -> {
+                    go.await();
+                    return AllPairsTable.forBoard(NARROW_ROWS, 900);
+                }));
+            }
+            go.countDown();
+            AllPairsTable first = tables.get(0).get(1, TimeUnit.MINUTES);
+            for (Future<AllPairsTable> table : tables) {
+                assertSame(first, table.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that distance queries are counted and cached like path queries, and
+ * that concurrent misses on one pair run a single search.
+ *
+ * @author Kenneth Dearman
+ */
+class CachingSolverTest {
+    private static final BoardGeometry BOARD = BoardGeometry.STANDARD;
+
+    @Test
+    void distanceMissIsCountedAndCached() {
+        CountingSolver counting = new CountingSolver(new SolvePuzzle(BOARD, SearchMode.BREADTH_FIRST));
+        CachingSolver solver = new CachingSolver(counting, 8, EvictionPolicy.LEAST_RECENTLY_USED);
+        Position start = BOARD.positionAt(0, 0);
+        Position target = BOARD.positionAt(7, 7);
+
+        assertEquals(6, solver.distance(start, target));
+        assertEquals(6, solver.distance(start, target));
+
+        assertEquals(1, solver.getMisses());
+        assertEquals(1, solver.getHits());
+        assertEquals(1, counting.distances);
+        assertEquals(1, solver.size());
+    }
+
+    @Test
+    void pathQueryReplacesADistanceOnlyEntry() {
+        CountingSolver counting = new CountingSolver(new SolvePuzzle(BOARD, SearchMode.BREADTH_FIRST));
+        CachingSolver solver = new CachingSolver(counting, 8, EvictionPolicy.LEAST_FREQUENTLY_USED);
+        Position start = BOARD.positionAt(0, 0);
+        Position target = BOARD.positionAt(7, 7);
+
+        solver.distance(start, target);
+        SolutionPath path = solver.findPath(start, target);
+        SolutionPath again = solver.findPath(start, target);
+
+        assertNotNull(path);
+        assertEquals(6, path.length());
+        assertEquals(path, again);
+        assertEquals(6, solver.distance(start, target));
+        assertEquals(2, solver.getMisses());
+        assertEquals(2, solver.getHits());
+        assertEquals(1, counting.paths);
+        assertEquals(1, solver.size());
+    }
+
+    @Test
+    void unreachableDistanceAlsoAnswersPathQueries() {
+        BoardGeometry corner = new BoardGeometry(3, 3);
+        CountingSolver counting = new CountingSolver(new SolvePuzzle(corner, SearchMode.BREADTH_FIRST));
+        CachingSolver solver = new CachingSolver(counting, 8, EvictionPolicy.LEAST_RECENTLY_USED);
+        Position start = corner.positionAt(0, 0);
+        Position center = corner.positionAt(1, 1);
+
+        assertEquals(-1, solver.distance(start, center));
+        assertNull(solver.findPath(start, center));
+
+        assertEquals(0, counting.paths);
+        assertEquals(1, solver.getHits());
+    }
+
+    @Test
+    void pathMissOnADistanceOnlyEntryIsNotAUse() {
+        CountingSolver counting = new CountingSolver(new SolvePuzzle(BOARD, SearchMode.BREADTH_FIRST));
+        CachingSolver solver = new CachingSolver(counting, 2, EvictionPolicy.LEAST_FREQUENTLY_USED);
+        Position start = BOARD.positionAt(0, 0);
+        Position first = BOARD.positionAt(7, 7);
+        Position second = BOARD.positionAt(5, 6);
+        Position third = BOARD.positionAt(3, 3);
+
+        solver.distance(start, first);
+        solver.distance(start, second);
+        solver.findPath(start, first);
+        solver.distance(start, third);
+        solver.findPath(start, first);
+
+        assertEquals(2, counting.paths);
+        assertEquals(2, solver.getEvictions());
+    }
+
+    @Test
+    void concurrentMissesOnOnePairRunOneSearch() throws Exception {
+        int threads = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger searches = new AtomicInteger();
+        Solver inner = new SolvePuzzle(BOARD, SearchMode.BREADTH_FIRST);
+        Solver blocking = new Solver() {
+            @Override
+            public BoardGeometry getBoard() {
+                return BOARD;
+            }
+
+            @Override
+            public SolutionPath findPath(Position startPos, Position endPos) {
+                searches.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                return inner.findPath(startPos, endPos);
+            }
+
+            @Override
+            public int distance(Position startPos, Position endPos) {
+                searches.incrementAndGet();
+                return inner.distance(startPos, endPos);
+            }
+        };
+        CachingSolver solver = new CachingSolver(blocking, 8, EvictionPolicy.LEAST_RECENTLY_USED);
+        Position start = BOARD.positionAt(0, 0);
+        Position target = BOARD.positionAt(7, 7);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SolutionPath>> paths = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                paths.add(executor.submit(() -> solver.findPath(start, target)));
+            }
+            Future<Integer> moves = executor.submit(() -> solver.distance(start, target));
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<SolutionPath> path : paths) {
+                assertEquals(6, path.get(5, TimeUnit.SECONDS).length());
+            }
+            assertEquals(6, moves.get(5, TimeUnit.SECONDS).intValue());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, searches.get());
+        assertEquals(1, solver.getMisses());
+        assertEquals(threads, solver.getHits());
+    }
+
+    /**
+     * Passes queries on and counts them.
+     */
+    private static final class CountingSolver implements Solver {
+        private final Solver delegate;
+        private int paths;
+        private int distances;
+
+        CountingSolver(Solver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public BoardGeometry getBoard() {
+            return this.delegate.getBoard();
+        }
+
+        @Override
+        public SolutionPath findPath(Position startPos, Position endPos) {
+            this.paths++;
+            return this.delegate.findPath(startPos, endPos);
+        }
+
+        @Override
+        public int distance(Position startPos, Position endPos) {
+            this.distances++;
+            return this.delegate.distance(startPos, endPos);
+        }
+    }
+}
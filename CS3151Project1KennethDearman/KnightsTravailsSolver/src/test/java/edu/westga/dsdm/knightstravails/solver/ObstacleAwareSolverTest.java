@@ -0,0 +1,120 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.westga.dsdm.knightstravails.model.BlockedSquares;
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Blocks and frees random squares and checks the repaired trees of the
+ * obstacle-aware solver against a fresh breadth first search.
+ *
+ * @author Kenneth Dearman
+ */
+class ObstacleAwareSolverTest {
+    private static final BoardGeometry BOARD = new BoardGeometry(9, 11);
+    private static final int STEPS = 1500;
+    private static final int[][] KNIGHT_MOVES = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+
+    @Test
+    void repairedTreesMatchAFreshSearchAfterEveryChange() {
+        BlockedSquares obstacles = new BlockedSquares(BOARD);
+        SplittableRandom random = new SplittableRandom(7);
+        Position[] starts = new Position[5];
+        for (int index = 0; index < starts.length; index++) {
+            starts[index] = this.randomSquare(random);
+        }
+        try (ObstacleAwareSolver solver = new ObstacleAwareSolver(obstacles, 3)) {
+            for (int step = 0; step < STEPS; step++) {
+                Position square = this.randomSquare(random);
+                if (obstacles.isBlocked(square)) {
+                    obstacles.free(square);
+                } else if (random.nextInt(3) > 0) {
+                    obstacles.block(square);
+                }
+
+                Position start = starts[random.nextInt(starts.length)];
+                int[] expected = distancesAvoiding(obstacles, start);
+                for (int cell = 0; cell < BOARD.cellCount(); cell++) {
+                    Position end = BOARD.positionAt(cell);
+                    assertEquals(expected[cell], solver.distance(start, end), "step " + step + " " + start + " to " + end);
+                }
+                Position end = this.randomSquare(random);
+                SolutionPath path = solver.findPath(start, end);
+                int expectedMoves = expected[BOARD.indexOf(end)];
+                if (expectedMoves == -1) {
+                    assertNull(path);
+                } else {
+                    assertEquals(expectedMoves, path.length());
+                    assertEquals(start, path.get(0));
+                    assertEquals(end, path.get(path.length()));
+                    for (int index = 1; index <= path.length(); index++) {
+                        assertFalse(obstacles.isBlocked(path.get(index)), "path lands on a blocked square");
+                        int rowStep = Math.abs(path.get(index).row() - path.get(index - 1).row());
+                        int colStep = Math.abs(path.get(index).col() - path.get(index - 1).col());
+                        assertTrue(rowStep * colStep == 2, "step " + index + " is not a knight move");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void closedSolverStopsAnswering() {
+        BlockedSquares obstacles = new BlockedSquares(BOARD);
+        ObstacleAwareSolver solver = new ObstacleAwareSolver(obstacles);
+        Position start = BOARD.positionAt(0, 0);
+        Position end = BOARD.positionAt(4, 4);
+        solver.distance(start, end);
+
+        solver.close();
+        obstacles.block(BOARD.positionAt(2, 1));
+
+        assertThrows(IllegalStateException.class, () -> solver.distance(start, end));
+        assertThrows(IllegalStateException.class, () -> solver.findPath(start, end));
+    }
+
+    private Position randomSquare(SplittableRandom random) {
+        return BOARD.positionAt(random.nextInt(BOARD.rows()), random.nextInt(BOARD.cols()));
+    }
+
+    private static int[] distancesAvoiding(BlockedSquares obstacles, Position start) {
+        int[] distances = new int[(int) BOARD.cellCount()];
+        Arrays.fill(distances, -1);
+        if (obstacles.isBlocked(start)) {
+            return distances;
+        }
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = BOARD.indexOf(start);
+        distances[queue[0]] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / BOARD.cols();
+            int col = cell % BOARD.cols();
+            for (int[] move : KNIGHT_MOVES) {
+                int nextRow = row + move[0];
+                int nextCol = col + move[1];
+                if (BOARD.contains(nextRow, nextCol)) {
+                    int next = nextRow * BOARD.cols() + nextCol;
+                    if (distances[next] == -1 && !obstacles.isBlocked(BOARD.positionAt(next))) {
+                        distances[next] = distances[cell] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,135 @@
+package edu.westga.dsdm.knightstravails.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.westga.dsdm.knightstravails.model.BoardGeometry;
+import edu.westga.dsdm.knightstravails.model.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Shares one SolvePuzzle between many threads in every search mode and checks
+ * every answer against a single-threaded breadth first search.
+ *
+ * @author Kenneth Dearman
+ */
+class SolvePuzzleConcurrencyTest {
+    private static final BoardGeometry BOARD = new BoardGeometry(20, 23);
+    private static final int THREADS = 8;
+    private static final int QUERIES = THREADS * 400;
+    private static final int[][] KNIGHT_MOVES = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+
+    @ParameterizedTest
+    @EnumSource(SearchMode.class)
+    void sharedSolverAnswersEveryQueryWithAShortestPath(SearchMode mode) throws Exception {
+        SolvePuzzle solver = new SolvePuzzle(BOARD, mode);
+        Position[] starts = new Position[QUERIES];
+        Position[] targets = new Position[QUERIES];
+        SplittableRandom random = new SplittableRandom(mode.ordinal());
+        for (int query = 0; query < QUERIES; query++) {
+            starts[query] = BOARD.positionAt(random.nextInt(BOARD.rows()), random.nextInt(BOARD.cols()));
+            targets[query] = BOARD.positionAt(random.nextInt(BOARD.rows()), random.nextInt(BOARD.cols()));
+        }
+        int[] expected = new int[QUERIES];
+        Map<Position, int[]> fields = new HashMap<>();
+        for (int query = 0; query < QUERIES; query++) {
+            expected[query] = fields.computeIfAbsent(starts[query], SolvePuzzleConcurrencyTest::distancesFrom)[BOARD.indexOf(targets[query])];
+        }
+
+        SolutionPath[] paths = new SolutionPath[QUERIES];
+        int[] distances = new int[QUERIES];
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int first = thread;
+                workers.add(threads.submit(() -> {
+                    go.await();
+                    for (int query = first; query < QUERIES; query += THREADS) {
+                        paths[query] = solver.findPath(starts[query], targets[query]);
+                        distances[query] = solver.distance(starts[query], targets[query]);
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        for (int query = 0; query < QUERIES; query++) {
+            String description = mode + " query " + starts[query] + " -> " + targets[query];
+            assertEquals(expected[query], distances[query], description);
+            if (expected[query] == -1) {
+                assertNull(paths[query], description);
+            } else {
+                assertShortestKnightPath(paths[query], starts[query], targets[query], expected[query], description);
+            }
+        }
+    }
+
+    private static void assertShortestKnightPath(SolutionPath path, Position start, Position target, int moves,
+            String description) {
+        assertNotNull(path, description);
+        assertEquals(moves, path.length(), description);
+        assertEquals(start, path.getStart(), description);
+        assertEquals(target, path.getEnd(), description);
+        for (int index = 1; index <= path.length(); index++) {
+            Position from = path.get(index - 1);
+            Position to = path.get(index);
+            int rowStep = Math.abs(to.row() - from.row());
+            int colStep = Math.abs(to.col() - from.col());
+            assertTrue(BOARD.contains(to) && rowStep * colStep == 2, description + " has an illegal move " + from + " -> " + to);
+        }
+    }
+
+    /**
+     * Runs a plain breadth first search over knight moves, independent of the solver code.
+     *
+     * @param start the start square
+     * @return the distance to every cell, -1 where unreachable
+     */
+    private static int[] distancesFrom(Position start) {
+        int[] distances = new int[(int) BOARD.cellCount()];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = BOARD.indexOf(start);
+        distances[queue[0]] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / BOARD.cols();
+            int col = cell % BOARD.cols();
+            for (int[] move : KNIGHT_MOVES) {
+                int nextRow = row + move[0];
+                int nextCol = col + move[1];
+                if (BOARD.contains(nextRow, nextCol) && distances[nextRow * BOARD.cols() + nextCol] == -1) {
+                    distances[nextRow * BOARD.cols() + nextCol] = distances[cell] + 1;
+                    queue[tail++] = nextRow * BOARD.cols() + nextCol;
+                }
+            }
+        }
+        return distances;
+    }
+}